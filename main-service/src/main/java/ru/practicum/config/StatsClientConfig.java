@@ -1,10 +1,16 @@
 package ru.practicum.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import ru.practicum.exp.stat.client.HitSender;
+import ru.practicum.exp.stat.client.HitSpool;
 import ru.practicum.exp.stat.client.StatsClient;
 
+import java.nio.file.Path;
+import java.time.Duration;
+
 /**
  * Класс конфигурации StatsClient'a
  */
@@ -12,9 +18,44 @@ import ru.practicum.exp.stat.client.StatsClient;
 public class StatsClientConfig {
     @Value("${stats-module-url}")
     private String serverUrl;
+    @Value("${stats-client.hit.async.enabled:true}")
+    private boolean asyncEnabled;
+    @Value("${stats-client.hit.async.capacity:10000}")
+    private int capacity;
+    @Value("${stats-client.hit.async.batch-size:100}")
+    private int batchSize;
+    @Value("${stats-client.hit.async.flush-interval-ms:500}")
+    private long flushIntervalMillis;
+    @Value("${stats-client.hit.async.overflow-policy:DROP_OLDEST}")
+    private HitSender.OverflowPolicy overflowPolicy;
+    @Value("${stats-client.hit.spool.enabled:true}")
+    private boolean spoolEnabled;
+    // Обязателен при включенном хранилище: относительный путь зависел бы от рабочего каталога процесса
+    @Value("${stats-client.hit.spool.directory:}")
+    private String spoolDirectory;
+    @Value("${stats-client.hit.spool.max-bytes:268435456}")
+    private long spoolMaxBytes;
+    @Value("${stats-client.hit.spool.segment-bytes:4194304}")
+    private int spoolSegmentBytes;
 
     @Bean
-    public StatsClient statsClient() {
-        return new StatsClient(serverUrl);
+    public StatsClient statsClient(MeterRegistry meterRegistry) {
+        if (!asyncEnabled) {
+            return new StatsClient(serverUrl);
+        }
+        HitSpool hitSpool = spoolEnabled
+                ? new HitSpool(spoolPath(), spoolMaxBytes, spoolSegmentBytes, meterRegistry)
+                : null;
+        return new StatsClient(serverUrl, capacity, batchSize, Duration.ofMillis(flushIntervalMillis), overflowPolicy,
+                hitSpool, meterRegistry);
+    }
+
+    private Path spoolPath() {
+        Path path = Path.of(spoolDirectory);
+        if (spoolDirectory.isBlank() || !path.isAbsolute()) {
+            throw new IllegalStateException("Параметр stats-client.hit.spool.directory должен задавать " +
+                    "абсолютный путь к каталогу хранилища hit'ов, текущее значение: '" + spoolDirectory + "'");
+        }
+        return path;
     }
-}
\ No newline at end of file
+}
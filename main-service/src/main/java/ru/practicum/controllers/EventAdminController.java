@@ -9,6 +9,7 @@ import ru.practicum.models.dto.UpdateEventAdminRequest;
 import ru.practicum.services.EventAdminService;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 import java.util.List;
@@ -34,6 +35,7 @@ public class EventAdminController {
      * @param rangeEnd   Дата и время не позже которых должно произойти событие
      * @param from       Количество событий, которые нужно пропустить для формирования текущего набора
      * @param size       Количество событий в наборе
+     * @param cursor     Токен продолжения из заголовка X-Next-Cursor предыдущего ответа, заменяет from
      * @return Полученный список событий
      */
     @GetMapping()
@@ -45,9 +47,12 @@ public class EventAdminController {
                            @RequestParam(required = false) String rangeEnd,
                            @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
                            @Positive @RequestParam(defaultValue = "10") Integer size,
-                           HttpServletRequest request) {
+                           @RequestParam(required = false) String cursor,
+                           HttpServletRequest request,
+                           HttpServletResponse response) {
 
-        return eventAdminService.get(users, states, categories, rangeStart, rangeEnd, from, size, request);
+        return eventAdminService.get(users, states, categories, rangeStart, rangeEnd, from, size, cursor,
+                request, response);
     }
 
     /**
@@ -8,6 +8,7 @@ import ru.practicum.models.dto.EventShortDto;
 import ru.practicum.services.EventPublicService;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 import java.util.List;
@@ -35,6 +36,7 @@ public class EventPublicController {
      * @param sort          Вариант сортировки: по дате события или по количеству просмотров
      * @param from          Количество событий, которые нужно пропустить для формирования текущего набора
      * @param size          Количество событий в наборе
+     * @param cursor        Токен продолжения из заголовка X-Next-Cursor предыдущего ответа, заменяет from
      * @return Полученный список событий
      */
     @GetMapping()
@@ -47,9 +49,11 @@ public class EventPublicController {
                             @RequestParam(defaultValue = "EVENT_DATE") String sort,
                             @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
                             @Positive @RequestParam(defaultValue = "10") Integer size,
-                            HttpServletRequest request) {
+                            @RequestParam(required = false) String cursor,
+                            HttpServletRequest request,
+                            HttpServletResponse response) {
         return eventPublicService.get(text, categories, paid, rangeStart, rangeEnd,
-                onlyAvailable, sort, from, size, request);
+                onlyAvailable, sort, from, size, cursor, request, response);
     }
 
     /**
@@ -26,11 +26,14 @@ public class Category {
         if (this == o) return true;
         if (!(o instanceof Category)) return false;
         Category category = (Category) o;
-        return id != null && id.equals(category.id);
+        return getId() != null && getId().equals(category.getId());
     }
 
+    /**
+     * Хэш по идентификатору, у несохраненного объекта - по ссылке, ограничения те же, что у {@link Event#hashCode()}
+     */
     @Override
     public int hashCode() {
-        return 31;
+        return getId() != null ? getId().hashCode() : System.identityHashCode(this);
     }
 }
\ No newline at end of file
@@ -28,10 +28,10 @@ public class Comment {
     private String text;
     @Column(name = "created_on", nullable = false)
     private LocalDateTime createdOn;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id", nullable = false)
     private User author;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "event_id", referencedColumnName = "id")
     private Event event;
     @Enumerated(EnumType.STRING)
@@ -43,11 +43,14 @@ public class Comment {
         if (this == o) return true;
         if (!(o instanceof Comment)) return false;
         Comment comment = (Comment) o;
-        return id != null && id.equals(comment.id);
+        return getId() != null && getId().equals(comment.getId());
     }
 
+    /**
+     * Хэш по идентификатору, у несохраненного объекта - по ссылке, ограничения те же, что у {@link Event#hashCode()}
+     */
     @Override
     public int hashCode() {
-        return 31;
+        return getId() != null ? getId().hashCode() : System.identityHashCode(this);
     }
 }
\ No newline at end of file
@@ -39,11 +39,14 @@ public class Compilation {
         if (this == o) return true;
         if (!(o instanceof Compilation)) return false;
         Compilation that = (Compilation) o;
-        return id != null && id.equals(that.id);
+        return getId() != null && getId().equals(that.getId());
     }
 
+    /**
+     * Хэш по идентификатору, у несохраненного объекта - по ссылке, ограничения те же, что у {@link Event#hashCode()}
+     */
     @Override
     public int hashCode() {
-        return 31;
+        return getId() != null ? getId().hashCode() : System.identityHashCode(this);
     }
 }
\ No newline at end of file
@@ -26,10 +26,11 @@ public class Event {
     @Size(max = 255, message = "Annotation must not exceed 255 characters")
     @Column(name = "annotation")
     private String annotation;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
-    @Transient
+    // Счетчик изменяется только запросами EventRepository, сохранение события его не перезаписывает
+    @Column(name = "confirmed_requests", insertable = false, updatable = false)
     private Long confirmedRequests;
     @Column(name = "created_on")
     private LocalDateTime createdOn;
@@ -39,7 +40,7 @@ public class Event {
     private String description;
     @Column(name = "event_date")
     private LocalDateTime eventDate;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "initiator_id")
     private User initiator;
     @Embedded
@@ -66,11 +67,17 @@ public class Event {
         if (this == o) return true;
         if (!(o instanceof Event)) return false;
         Event event = (Event) o;
-        return id != null && id.equals(event.id);
+        return getId() != null && getId().equals(event.getId());
     }
 
+    /**
+     * Хэш по идентификатору, у несохраненного объекта - по ссылке, как и в equals: разные события
+     * попадают в разные корзины HashSet, а прокси и загруженная копия дают тот же хэш, что и оригинал.
+     * Идентификатор назначается при сохранении, поэтому несохраненное событие нельзя класть
+     * в хэш-коллекцию до сохранения: после него хэш изменится и объект в ней не найдется.
+     */
     @Override
     public int hashCode() {
-        return 31;
+        return getId() != null ? getId().hashCode() : System.identityHashCode(this);
     }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package ru.practicum.models;
+
+/**
+ * Проекция количества заявок на участие в событии
+ */
+public interface EventRequestsCount {
+    Long getEventId();
+
+    Long getRequests();
+}
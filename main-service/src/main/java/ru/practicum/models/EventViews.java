@@ -0,0 +1,28 @@
+package ru.practicum.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Модель объекта EventViews - снимок количества просмотров события для сортировки
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "event_views")
+public class EventViews {
+    @Id
+    @Column(name = "event_id")
+    private Long eventId;
+    @Column(name = "views")
+    private long views;
+}
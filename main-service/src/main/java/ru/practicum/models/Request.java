@@ -24,11 +24,11 @@ public class Request {
     @Column(name = "created", nullable = false)
     @NotNull(message = "Creation time must not be null")
     private LocalDateTime created;
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "event_id", nullable = false)
     @NotNull(message = "Event must not be null")
     private Event event;
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "requester_id", nullable = false)
     @NotNull(message = "Requester must not be null")
     private User requester;
@@ -33,11 +33,14 @@ public class User {
         if (this == o) return true;
         if (!(o instanceof User)) return false;
         User user = (User) o;
-        return id != null && id.equals(user.id);
+        return getId() != null && getId().equals(user.getId());
     }
 
+    /**
+     * Хэш по идентификатору, у несохраненного объекта - по ссылке, ограничения те же, что у {@link Event#hashCode()}
+     */
     @Override
     public int hashCode() {
-        return getClass().hashCode();
+        return getId() != null ? getId().hashCode() : System.identityHashCode(this);
     }
 }
\ No newline at end of file
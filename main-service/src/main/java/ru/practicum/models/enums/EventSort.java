@@ -0,0 +1,8 @@
+package ru.practicum.models.enums;
+
+/**
+ * ENUM варианта сортировки публичного списка событий (EventSort)
+ */
+public enum EventSort {
+    EVENT_DATE, VIEWS
+}
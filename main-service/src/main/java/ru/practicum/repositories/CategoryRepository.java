@@ -1,9 +1,12 @@
 package ru.practicum.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.exceptions.ResourceNotFoundException;
 import ru.practicum.models.Category;
 
+import java.util.List;
+
 /**
  * Интерфейс CategoryRepository для обработки запросов к БД
  */
@@ -16,6 +19,14 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      */
     Boolean existsByName(String name);
 
+    /**
+     * Находит страницу категорий без подсчета их общего количества.
+     *
+     * @param pageable параметры постраничного вывода
+     * @return список категорий
+     */
+    List<Category> findAllBy(Pageable pageable);
+
     /**
      * Получает категорию по её идентификатору.
      *
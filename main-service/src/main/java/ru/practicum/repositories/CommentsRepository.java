@@ -1,6 +1,7 @@
 package ru.practicum.repositories;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.exceptions.ResourceNotFoundException;
 import ru.practicum.models.Comment;
@@ -9,11 +10,22 @@ import ru.practicum.models.User;
 import ru.practicum.models.enums.CommentState;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Интерфейс CommentsRepository для обработки запросов к БД
  */
 public interface CommentsRepository extends JpaRepository<Comment, Long> {
+    /**
+     * Находит комментарий по идентификатору вместе с автором и событием.
+     *
+     * @param id идентификатор комментария
+     * @return комментарий, если найден
+     */
+    @Override
+    @EntityGraph(attributePaths = {"author", "event", "event.category", "event.initiator"})
+    Optional<Comment> findById(Long id);
+
     /**
      * Находит комментарии по событию с учетом пагинации.
      *
@@ -21,6 +33,7 @@ public interface CommentsRepository extends JpaRepository<Comment, Long> {
      * @param pageable параметры пагинации
      * @return список комментариев
      */
+    @EntityGraph(attributePaths = {"author"})
     List<Comment> findByEvent(Event event, Pageable pageable);
 
     /**
@@ -31,6 +44,7 @@ public interface CommentsRepository extends JpaRepository<Comment, Long> {
      * @param pageable параметры пагинации
      * @return список комментариев
      */
+    @EntityGraph(attributePaths = {"author"})
     List<Comment> findByEventAndStateIsNot(Event event, CommentState state, Pageable pageable);
 
     /**
@@ -41,6 +55,7 @@ public interface CommentsRepository extends JpaRepository<Comment, Long> {
      * @param pageable параметры пагинации
      * @return список комментариев
      */
+    @EntityGraph(attributePaths = {"author"})
     List<Comment> findByEventAndAuthor(Event event, User user, Pageable pageable);
 
     /**
@@ -1,6 +1,7 @@
 package ru.practicum.repositories;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -8,14 +9,27 @@ import ru.practicum.exceptions.ResourceNotFoundException;
 import ru.practicum.models.Compilation;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Интерфейс CompilationRepository для обработки запросов к БД
  */
 @Repository
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
+    /**
+     * Находит подборку по идентификатору вместе с событиями, их категориями и инициаторами.
+     *
+     * @param id идентификатор подборки
+     * @return подборка, если найдена
+     */
+    @Override
+    @EntityGraph(attributePaths = {"events", "events.category", "events.initiator"})
+    Optional<Compilation> findById(Long id);
+
     /**
      * Находит все подборки событий по состоянию pinned.
+     * События подборок загружаются пачками (hibernate.default_batch_fetch_size): выборка коллекций
+     * в одном запросе с постраничной выдачей выполнялась бы в памяти.
      *
      * @param pinned   состояние pinned
      * @param pageable параметры пагинации
@@ -1,7 +1,9 @@
 package ru.practicum.repositories;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -10,7 +12,6 @@ import ru.practicum.models.Category;
 import ru.practicum.models.Event;
 import ru.practicum.models.enums.EventState;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -19,7 +20,27 @@ import java.util.Set;
  * Интерфейс EventRepository для обработки запросов к БД
  */
 @Repository
-public interface EventRepository extends JpaRepository<Event, Long> {
+public interface EventRepository extends JpaRepository<Event, Long>, EventSearchRepository {
+    /**
+     * Находит событие по идентификатору вместе с категорией и инициатором.
+     *
+     * @param id идентификатор события
+     * @return событие, если найдено
+     */
+    @Override
+    @EntityGraph(attributePaths = {"category", "initiator"})
+    Optional<Event> findById(Long id);
+
+    /**
+     * Находит события по идентификаторам вместе с категориями и инициаторами.
+     *
+     * @param ids идентификаторы событий
+     * @return список событий
+     */
+    @Override
+    @EntityGraph(attributePaths = {"category", "initiator"})
+    List<Event> findAllById(Iterable<Long> ids);
+
     /**
      * Находит события по категории.
      *
@@ -43,97 +64,87 @@ public interface EventRepository extends JpaRepository<Event, Long> {
      * @param pageable параметры пагинации
      * @return список событий
      */
+    @EntityGraph(attributePaths = {"category", "initiator"})
     List<Event> findAllByInitiatorId(Long userId, Pageable pageable);
 
     /**
-     * Находит все события для администраторов с учетом различных фильтров.
+     * Находит идентификаторы опубликованных событий после заданного, по возрастанию.
      *
-     * @param users      список идентификаторов пользователей
-     * @param states     список состояний событий
-     * @param categories список категорий событий
-     * @param rangeStart начало диапазона дат
-     * @param rangeEnd   конец диапазона дат
-     * @param from       смещение для пагинации
-     * @param size       размер страницы
-     * @return список событий
+     * @param afterId идентификатор, после которого начинается выборка
+     * @param size    количество идентификаторов
+     * @return список идентификаторов событий
      */
-    @Query(value = "SELECT * FROM events WHERE (initiator_id IN :users OR :users IS NULL) AND state IN :states " +
-            "AND (category_id IN :categories  OR :categories IS NULL) AND (event_date >= to_timestamp(:rangeStart, 'yyyy-mm-dd hh24:mi:ss')  " +
-            "OR to_timestamp(:rangeStart, 'yyyy-mm-dd hh24:mi:ss') IS NULL) AND (event_date <= to_timestamp(:rangeEnd, 'yyyy-mm-dd hh24:mi:ss')   " +
-            "OR to_timestamp(:rangeEnd, 'yyyy-mm-dd hh24:mi:ss') IS NULL) OFFSET :from LIMIT :size", nativeQuery = true)
-    List<Event> findAllByAdmin(@Param("users") List<Long> users,
-                               @Param("states") List<String> states,
-                               @Param("categories") List<Long> categories,
-                               @Param("rangeStart") LocalDateTime rangeStart,
-                               @Param("rangeEnd") LocalDateTime rangeEnd,
-                               @Param("from") Integer from,
-                               @Param("size") Integer size);
+    @Query(value = "SELECT id FROM events WHERE state = 'PUBLISHED' AND id > :afterId ORDER BY id LIMIT :size",
+            nativeQuery = true)
+    List<Long> findPublishedIdsAfter(@Param("afterId") long afterId, @Param("size") int size);
 
     /**
-     * Находит все события для администраторов с учетом фильтров и пагинации.
+     * Находит событие по его идентификатору и состоянию.
      *
-     * @param users      список идентификаторов пользователей
-     * @param states     список состояний событий
-     * @param categories список категорий событий
-     * @param rangeStart начало диапазона дат
-     * @param rangeEnd   конец диапазона дат
-     * @param pageable   параметры пагинации
-     * @return список событий
+     * @param id    идентификатор события
+     * @param state состояние события
+     * @return событие, если найдено
      */
-    @Query("select e from Event e " +
-            "where (:users is null or e.initiator.id in :users) " +
-            "and (:states is null or e.state in :states) " +
-            "and (:categories is null or e.category.id in :categories) " +
-            "and (cast(:rangeStart as java.time.LocalDateTime) is null or e.eventDate >= :rangeStart) " +
-            "and (cast(:rangeEnd as java.time.LocalDateTime) is null or e.eventDate <= :rangeEnd)")
-    List<Event> findAllByAdminAndState(@Param("users") List<Long> users,
-                                       @Param("states") List<EventState> states,
-                                       @Param("categories") List<Long> categories,
-                                       @Param("rangeStart") LocalDateTime rangeStart,
-                                       @Param("rangeEnd") LocalDateTime rangeEnd,
-                                       Pageable pageable);
+    @EntityGraph(attributePaths = {"category", "initiator"})
+    Optional<Event> findEventByIdAndStateIs(Long id, EventState state);
 
     /**
-     * Находит события для публичного доступа с учетом фильтров.
+     * Изменяет счетчик подтвержденных заявок события одним запросом к строке события.
      *
-     * @param text       текст для поиска в аннотации или описании
-     * @param categories категории событий
-     * @param paid       статус оплаты
-     * @param rangeStart начало диапазона дат
-     * @param rangeEnd   конец диапазона дат
-     * @param sort       критерий сортировки
-     * @param from       смещение для пагинации
-     * @param size       размер страницы
-     * @return список событий
+     * @param eventId идентификатор события
+     * @param delta   изменение счетчика
+     * @return количество измененных строк
      */
-    @Query(value = "SELECT * " +
-            "FROM events  " +
-            "WHERE (lower(annotation) LIKE '%'||lower(:text)||'%' OR lower(description) LIKE '%'||lower(:text)||'%') " +
-            "AND (category_id IN :categories  OR :categories IS NULL) " +
-            "AND (:paid IS NULL OR paid = :paid) " +
-            "AND (event_date BETWEEN " +
-            "to_timestamp(:rangeStart, 'yyyy-mm-dd hh24:mi:ss') AND to_timestamp(:rangeEnd, 'yyyy-mm-dd hh24:mi:ss') " +
-            "OR event_date > CURRENT_TIMESTAMP) " +
-            "ORDER BY lower(:sort) " +
-            "OFFSET :from " +
-            "LIMIT :size", nativeQuery = true)
-    List<Event> findAllByPublic(@Param("text") String text,
-                                @Param("categories") List<Long> categories,
-                                @Param("paid") Boolean paid,
-                                @Param("rangeStart") String rangeStart,
-                                @Param("rangeEnd") String rangeEnd,
-                                @Param("sort") String sort,
-                                @Param("from") Integer from,
-                                @Param("size") Integer size);
+    @Modifying
+    @Query(value = "UPDATE events SET confirmed_requests = confirmed_requests + :delta WHERE id = :eventId",
+            nativeQuery = true)
+    int addConfirmedRequests(@Param("eventId") Long eventId, @Param("delta") long delta);
 
     /**
-     * Находит событие по его идентификатору и состоянию.
+     * Увеличивает счетчик подтвержденных заявок события, если он не превысит лимит участников.
+     * Условие вычисляется по строке события под блокировкой обновления, поэтому одновременные
+     * подтверждения не выходят за лимит.
      *
-     * @param id    идентификатор события
-     * @param state состояние события
-     * @return событие, если найдено
+     * @param eventId идентификатор события
+     * @param delta   количество подтверждаемых заявок
+     * @return 1, если счетчик увеличен, 0, если лимит участников был бы превышен
      */
-    Optional<Event> findEventByIdAndStateIs(Long id, EventState state);
+    @Modifying
+    @Query(value = "UPDATE events SET confirmed_requests = confirmed_requests + :delta WHERE id = :eventId " +
+            "AND (participant_limit = 0 OR confirmed_requests + :delta <= participant_limit)", nativeQuery = true)
+    int addConfirmedRequestsWithinLimit(@Param("eventId") Long eventId, @Param("delta") long delta);
+
+    /**
+     * Находит события, у которых счетчик подтвержденных заявок расходится с таблицей заявок.
+     *
+     * @return список идентификаторов событий
+     */
+    @Query(value = "SELECT e.id FROM events e " +
+            "LEFT JOIN requests r ON r.event_id = e.id AND r.status = 'CONFIRMED' " +
+            "GROUP BY e.id, e.confirmed_requests " +
+            "HAVING e.confirmed_requests <> COUNT(r.id)", nativeQuery = true)
+    List<Long> findConfirmedRequestsMismatches();
+
+    /**
+     * Блокирует строку события до конца транзакции.
+     *
+     * @param eventId идентификатор события
+     * @return идентификатор события
+     */
+    @Query(value = "SELECT id FROM events WHERE id = :eventId FOR UPDATE", nativeQuery = true)
+    Long lockById(@Param("eventId") Long eventId);
+
+    /**
+     * Устанавливает счетчик подтвержденных заявок события, если он отличается от заданного значения.
+     *
+     * @param eventId   идентификатор события
+     * @param confirmed количество подтвержденных заявок
+     * @return количество измененных строк, 0 если счетчик был верным
+     */
+    @Modifying
+    @Query(value = "UPDATE events SET confirmed_requests = :confirmed " +
+            "WHERE id = :eventId AND confirmed_requests <> :confirmed", nativeQuery = true)
+    int setConfirmedRequests(@Param("eventId") Long eventId, @Param("confirmed") long confirmed);
 
     default Event get(long id) {
         return findById(id).orElseThrow(()
@@ -0,0 +1,52 @@
+package ru.practicum.repositories;
+
+import ru.practicum.models.Event;
+import ru.practicum.models.enums.EventSort;
+import ru.practicum.models.enums.EventState;
+import ru.practicum.util.EventCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Интерфейс EventSearchRepository для поиска событий по набору необязательных фильтров.
+ * В запрос попадают только заданные фильтры, даты передаются типизированными параметрами.
+ */
+public interface EventSearchRepository {
+    /**
+     * Находит события для администраторов, упорядоченные по дате события и id.
+     *
+     * @param users      список идентификаторов инициаторов или null
+     * @param states     список состояний событий или null
+     * @param categories список идентификаторов категорий или null
+     * @param rangeStart начало диапазона дат или null
+     * @param rangeEnd   конец диапазона дат или null
+     * @param after      позиция курсора, события возвращаются после нее, или null
+     * @param from       смещение для пагинации
+     * @param size       размер страницы
+     * @return список событий
+     */
+    List<Event> findAllByAdmin(List<Long> users, List<EventState> states, List<Long> categories,
+                               LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                               EventCursor after, int from, int size);
+
+    /**
+     * Находит события для публичного доступа.
+     * Поиск подстроки в PostgreSQL использует триграммные индексы по lower(annotation) и lower(description).
+     *
+     * @param text          текст для поиска в аннотации или описании или null
+     * @param categories    список идентификаторов категорий или null
+     * @param paid          статус оплаты или null
+     * @param rangeStart    начало диапазона дат или null
+     * @param rangeEnd      конец диапазона дат или null
+     * @param onlyAvailable только события, у которых не исчерпан лимит подтвержденных заявок
+     * @param sort          вариант сортировки, для VIEWS используется снимок просмотров из event_views
+     * @param after         позиция курсора для сортировки EVENT_DATE или null
+     * @param from          смещение для пагинации
+     * @param size          размер страницы
+     * @return список событий
+     */
+    List<Event> findAllByPublic(String text, List<Long> categories, Boolean paid,
+                                LocalDateTime rangeStart, LocalDateTime rangeEnd, boolean onlyAvailable,
+                                EventSort sort, EventCursor after, int from, int size);
+}
@@ -0,0 +1,146 @@
+package ru.practicum.repositories;
+
+import ru.practicum.models.Event;
+import ru.practicum.models.enums.EventSort;
+import ru.practicum.models.enums.EventState;
+import ru.practicum.util.EventCursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Класс EventSearchRepositoryImpl для построения запроса поиска событий из заданных фильтров
+ */
+public class EventSearchRepositoryImpl implements EventSearchRepository {
+    // Категория и инициатор нужны для ответа, поэтому загружаются тем же запросом
+    private static final String SELECT_EVENTS = "select e from Event e join fetch e.category join fetch e.initiator";
+    private static final String ORDER_BY_EVENT_DATE = " order by e.eventDate, e.id";
+    private static final String JOIN_VIEWS = " join EventViews v on v.eventId = e.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Event> findAllByAdmin(List<Long> users, List<EventState> states, List<Long> categories,
+                                      LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                      EventCursor after, int from, int size) {
+        Conditions conditions = new Conditions();
+        if (users != null) {
+            conditions.add("e.initiator.id in :users", "users", users);
+        }
+        if (states != null) {
+            conditions.add("e.state in :states", "states", states);
+        }
+        if (categories != null) {
+            conditions.add("e.category.id in :categories", "categories", categories);
+        }
+        if (rangeStart != null) {
+            conditions.add("e.eventDate >= :rangeStart", "rangeStart", rangeStart);
+        }
+        if (rangeEnd != null) {
+            conditions.add("e.eventDate <= :rangeEnd", "rangeEnd", rangeEnd);
+        }
+        addAfter(conditions, after);
+        return find(SELECT_EVENTS, conditions, ORDER_BY_EVENT_DATE, after == null ? from : 0, size);
+    }
+
+    @Override
+    public List<Event> findAllByPublic(String text, List<Long> categories, Boolean paid,
+                                       LocalDateTime rangeStart, LocalDateTime rangeEnd, boolean onlyAvailable,
+                                       EventSort sort, EventCursor after, int from, int size) {
+        Conditions conditions = new Conditions();
+        if (text != null && !text.isEmpty()) {
+            conditions.add("(lower(e.annotation) like :text or lower(e.description) like :text)",
+                    "text", "%" + text.toLowerCase() + "%");
+        }
+        if (categories != null) {
+            conditions.add("e.category.id in :categories", "categories", categories);
+        }
+        if (paid != null) {
+            conditions.add("e.paid = :paid", "paid", paid);
+        }
+        if (rangeStart != null && rangeEnd != null) {
+            conditions.add("(e.eventDate between :rangeStart and :rangeEnd or e.eventDate > current_timestamp)",
+                    Map.of("rangeStart", rangeStart, "rangeEnd", rangeEnd));
+        } else {
+            conditions.add("e.eventDate > current_timestamp");
+        }
+        if (onlyAvailable) {
+            conditions.add("(e.participantLimit = 0 or e.confirmedRequests < e.participantLimit)");
+        }
+        if (sort == EventSort.VIEWS) {
+            return findByViews(conditions, from, size);
+        }
+        addAfter(conditions, after);
+        return find(SELECT_EVENTS, conditions, ORDER_BY_EVENT_DATE, after == null ? from : 0, size);
+    }
+
+    /**
+     * Метод поиска событий по убыванию просмотров. Страница выбирается обходом индекса снимков
+     * (views, event_id) с соединением событий, события без снимка просмотров (еще не попавшие в обновление)
+     * выдаются после событий со снимком в порядке id
+     */
+    private List<Event> findByViews(Conditions conditions, int from, int size) {
+        List<Event> events = new ArrayList<>(find(SELECT_EVENTS + JOIN_VIEWS, conditions,
+                " order by v.views desc nulls last, v.eventId", from, size));
+        if (events.size() == size) {
+            return events;
+        }
+        // Если страница началась среди событий со снимком, события без снимка выдаются с начала,
+        // иначе пропускается остаток смещения после всех событий со снимком
+        int skip = events.isEmpty() && from > 0 ? from - (int) count(JOIN_VIEWS, conditions) : 0;
+        conditions.add("not exists (select v from EventViews v where v.eventId = e.id)");
+        events.addAll(find(SELECT_EVENTS, conditions, " order by e.id", Math.max(skip, 0), size - events.size()));
+        return events;
+    }
+
+    private void addAfter(Conditions conditions, EventCursor after) {
+        if (after != null) {
+            // Первое условие задает начало диапазона по индексу (event_date, id), второе отсекает уже выданные строки
+            conditions.add("e.eventDate >= :afterDate and (e.eventDate > :afterDate or e.id > :afterId)",
+                    Map.of("afterDate", after.getEventDate(), "afterId", after.getId()));
+        }
+    }
+
+    private List<Event> find(String select, Conditions conditions, String orderBy, int from, int size) {
+        TypedQuery<Event> query = entityManager.createQuery(select + conditions.where + orderBy, Event.class);
+        conditions.params.forEach(query::setParameter);
+        return query.setFirstResult(from)
+                .setMaxResults(size)
+                .getResultList();
+    }
+
+    private long count(String join, Conditions conditions) {
+        TypedQuery<Long> query = entityManager.createQuery("select count(e) from Event e" + join + conditions.where,
+                Long.class);
+        conditions.params.forEach(query::setParameter);
+        return query.getSingleResult();
+    }
+
+    /**
+     * Условия запроса и значения их параметров
+     */
+    private static class Conditions {
+        private final StringBuilder where = new StringBuilder();
+        private final Map<String, Object> params = new HashMap<>();
+
+        private void add(String condition) {
+            where.append(where.length() == 0 ? " where " : " and ").append(condition);
+        }
+
+        private void add(String condition, String param, Object value) {
+            add(condition, Map.of(param, value));
+        }
+
+        private void add(String condition, Map<String, Object> values) {
+            add(condition);
+            params.putAll(values);
+        }
+    }
+}
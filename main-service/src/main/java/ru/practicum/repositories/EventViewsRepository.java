@@ -0,0 +1,35 @@
+package ru.practicum.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Класс EventViewsRepository для записи снимка количества просмотров событий через JDBC batch.
+ * Снимок используется только для сортировки по просмотрам, в ответе отдаются просмотры из сервиса статистики.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EventViewsRepository {
+    private static final String UPSERT_SQL = "INSERT INTO event_views (event_id, views) VALUES (?, ?) " +
+            "ON CONFLICT (event_id) DO UPDATE SET views = EXCLUDED.views WHERE event_views.views <> EXCLUDED.views";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Метод записи количества просмотров, неизменившиеся значения не перезаписываются
+     *
+     * @param views Количество просмотров по идентификатору события
+     */
+    public void saveAll(Map<Long, Long> views) {
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(views.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getKey());
+            ps.setLong(2, entry.getValue());
+        });
+    }
+}
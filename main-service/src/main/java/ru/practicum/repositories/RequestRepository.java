@@ -2,17 +2,22 @@ package ru.practicum.repositories;
 
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.exceptions.ResourceNotFoundException;
 import ru.practicum.models.Event;
+import ru.practicum.models.EventRequestsCount;
 import ru.practicum.models.Request;
 import ru.practicum.models.User;
 import ru.practicum.models.enums.RequestStatus;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
- * Интерфейс RequestRepository для обработки запросов к БД
+ * Интерфейс RequestRepository для обработки запросов к БД.
+ * Событие и инициатор заявки загружаются лениво: в ответах передаются только их идентификаторы.
  */
 public interface RequestRepository extends JpaRepository<Request, Long> {
     /**
@@ -49,22 +54,17 @@ public interface RequestRepository extends JpaRepository<Request, Long> {
     Optional<Request> findByRequesterIdAndEventId(Long userId, Long eventId);
 
     /**
-     * Подсчитывает количество запросов по событию и статусу.
+     * Подсчитывает количество запросов с заданным статусом для каждого события из списка.
+     * События без таких запросов в результат не попадают.
      *
-     * @param event  событие
-     * @param status статус запроса
-     * @return количество запросов
+     * @param eventIds идентификаторы событий
+     * @param status   статус запроса
+     * @return список пар идентификатор события - количество запросов
      */
-    long countRequestByEventAndStatus(Event event, RequestStatus status);
-
-    /**
-     * Находит все запросы по списку событий и статусу.
-     *
-     * @param events список событий
-     * @param status статус запроса
-     * @return список запросов
-     */
-    List<Request> findAllByEventInAndStatus(List<Event> events, RequestStatus status);
+    @Query("SELECT r.event.id AS eventId, COUNT(r) AS requests FROM Request r " +
+            "WHERE r.event.id IN :eventIds AND r.status = :status GROUP BY r.event.id")
+    List<EventRequestsCount> countByEventIdsAndStatus(@Param("eventIds") Collection<Long> eventIds,
+                                                      @Param("status") RequestStatus status);
 
     /**
      * Получает запрос по его идентификатору или выбрасывает исключение, если он не найден.
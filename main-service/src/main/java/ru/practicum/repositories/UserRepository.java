@@ -20,6 +20,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     List<User> findByIdIn(List<Long> ids, Pageable pageable);
 
+    /**
+     * Находит страницу пользователей без подсчета их общего количества.
+     *
+     * @param pageable параметры постраничного вывода
+     * @return список пользователей
+     */
+    List<User> findAllBy(Pageable pageable);
+
     /**
      * Получает пользователя по его идентификатору или выбрасывает исключение, если он не найден.
      *
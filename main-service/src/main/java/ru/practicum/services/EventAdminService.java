@@ -4,6 +4,7 @@ import ru.practicum.models.dto.EventFullDto;
 import ru.practicum.models.dto.UpdateEventAdminRequest;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 /**
@@ -21,10 +22,12 @@ public interface EventAdminService {
      * @param rangeEnd   Дата и время не позже которых должно произойти событие
      * @param from       Количество событий, которые нужно пропустить для формирования текущего набора
      * @param size       Количество событий в наборе
+     * @param cursor     Токен продолжения из заголовка X-Next-Cursor предыдущего ответа, заменяет from
      * @return Полученный список событий
      */
     List<EventFullDto> get(List<Long> users, List<String> states, List<Long> categories,
-                           String rangeStart, String rangeEnd, int from, int size, HttpServletRequest request);
+                           String rangeStart, String rangeEnd, int from, int size, String cursor,
+                           HttpServletRequest request, HttpServletResponse response);
 
     /**
      * Метод редактирования события и его статуса (отклонение/публикация)
@@ -5,6 +5,7 @@ import ru.practicum.models.dto.EventFullDto;
 import ru.practicum.models.dto.EventShortDto;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 /**
@@ -24,10 +25,12 @@ public interface EventPublicService {
      * @param sort          Вариант сортировки: по дате события или по количеству просмотров
      * @param from          Количество событий, которые нужно пропустить для формирования текущего набора
      * @param size          Количество событий в наборе
+     * @param cursor        Токен продолжения из заголовка X-Next-Cursor предыдущего ответа, заменяет from
      * @return Полученный список событий
      */
     List<EventShortDto> get(String text, List<Long> categories, Boolean paid, String rangeStart, String rangeEnd,
-                            boolean onlyAvailable, String sort, Integer from, Integer size, HttpServletRequest request);
+                            boolean onlyAvailable, String sort, Integer from, Integer size, String cursor,
+                            HttpServletRequest request, HttpServletResponse response);
 
     /**
      * Метод получения подробной информации о событии по ID
@@ -3,6 +3,7 @@ package ru.practicum.services.implementation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.exceptions.ResourceNotFoundException;
@@ -32,7 +33,7 @@ public class CategoryPublicServiceImp implements CategoryPublicService {
             throw new IllegalArgumentException("Параметры 'from' и 'size' должны быть положительными");
 
         log.info("Получен запрос на список всех категорий");
-        return categoryRepository.findAll(PageRequest.of(from, size)).stream()
+        return categoryRepository.findAllBy(PageRequest.of(from, size, Sort.by("id"))).stream()
                 .map(CategoryMapper::categoryToCategoryDto).collect(Collectors.toList());
     }
 
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.exceptions.ResourceNotFoundException;
@@ -31,7 +32,7 @@ public class CompilationPublicServiceImp implements CompilationPublicService {
         if (from < 0 || size <= 0)
             throw new IllegalArgumentException("Параметры 'from' и 'size' должны быть положительными.");
 
-        Pageable pageable = PageRequest.of(from, size);
+        Pageable pageable = PageRequest.of(from, size, Sort.by("id"));
         log.info("Получен запрос на поиск всех подборок событий");
         return compilationRepository.findAllByPinnedIs(pinned, pageable).stream()
                 .map(CompilationMapper::compilationToCompilationDto).collect(Collectors.toList());
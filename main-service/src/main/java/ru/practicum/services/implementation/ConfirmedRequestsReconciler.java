@@ -0,0 +1,80 @@
+package ru.practicum.services.implementation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.models.EventRequestsCount;
+import ru.practicum.models.enums.RequestStatus;
+import ru.practicum.repositories.EventRepository;
+import ru.practicum.repositories.RequestRepository;
+
+import java.util.List;
+
+/**
+ * Класс ConfirmedRequestsReconciler для сверки счетчиков подтвержденных заявок событий с таблицей заявок.
+ * Первая сверка выполняется при запуске и заполняет счетчики событий, созданных до их появления.
+ * Расхождение исправляется под блокировкой строки события: заявки, подтвержденные в еще не завершенных
+ * транзакциях, к моменту пересчета либо зафиксированы, либо еще не учтены в счетчике.
+ */
+@Slf4j
+@Component
+public class ConfirmedRequestsReconciler {
+    private final EventRepository eventRepository;
+    private final RequestRepository requestRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Counter fixedCounter;
+
+    public ConfirmedRequestsReconciler(EventRepository eventRepository,
+                                       RequestRepository requestRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${events.confirmed-requests.reconcile.enabled:true}") boolean enabled) {
+        this.eventRepository = eventRepository;
+        this.requestRepository = requestRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.fixedCounter = Counter.builder("ewm.events.confirmed.requests.fixed")
+                .description("Счетчики подтвержденных заявок, исправленные при сверке")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Метод сверки счетчиков, каждое событие исправляется в отдельной транзакции
+     */
+    @Scheduled(initialDelayString = "${events.confirmed-requests.reconcile.initial-delay-ms:0}",
+            fixedDelayString = "${events.confirmed-requests.reconcile.interval-ms:3600000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> eventIds = eventRepository.findConfirmedRequestsMismatches();
+        if (eventIds.isEmpty()) {
+            log.info("Сверка счетчиков подтвержденных заявок завершена, расхождений нет");
+            return;
+        }
+        int fixed = 0;
+        for (Long eventId : eventIds) {
+            Long confirmed = transactionTemplate.execute(status -> {
+                eventRepository.lockById(eventId);
+                long count = requestRepository.countByEventIdsAndStatus(List.of(eventId), RequestStatus.CONFIRMED)
+                        .stream()
+                        .mapToLong(EventRequestsCount::getRequests)
+                        .sum();
+                return eventRepository.setConfirmedRequests(eventId, count) > 0 ? count : null;
+            });
+            if (confirmed != null) {
+                fixed++;
+                log.warn("Счетчик подтвержденных заявок события с id: {} расходился с таблицей заявок, " +
+                        "пересчитан по заявкам: {}", eventId, confirmed);
+            }
+        }
+        fixedCounter.increment(fixed);
+        log.info("Сверка счетчиков подтвержденных заявок завершена, исправлено событий: {}", fixed);
+    }
+}
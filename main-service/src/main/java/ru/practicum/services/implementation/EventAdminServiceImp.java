@@ -3,7 +3,6 @@ package ru.practicum.services.implementation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataAccessException;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.exceptions.BadRequestException;
@@ -21,10 +20,13 @@ import ru.practicum.repositories.CategoryRepository;
 import ru.practicum.repositories.EventRepository;
 import ru.practicum.services.EventAdminService;
 import ru.practicum.util.DateFormatter;
+import ru.practicum.util.EventCursor;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -44,9 +46,12 @@ public class EventAdminServiceImp implements EventAdminService {
 
     @Override
     public List<EventFullDto> get(List<Long> users, List<String> states, List<Long> categories,
-                                  String rangeStart, String rangeEnd, int from, int size, HttpServletRequest request) {
-        PageRequest page = PageRequest.of(from, size);
-        List<Event> events;
+                                  String rangeStart, String rangeEnd, int from, int size, String cursor,
+                                  HttpServletRequest request, HttpServletResponse response) {
+        List<EventState> eventStates = null;
+        if (states != null) {
+            eventStates = states.stream().map(this::parseState).collect(Collectors.toList());
+        }
         LocalDateTime newRangeStart = null;
         if (rangeStart != null) {
             newRangeStart = DateFormatter.formatDate(rangeStart);
@@ -56,17 +61,14 @@ public class EventAdminServiceImp implements EventAdminService {
             newRangeEnd = DateFormatter.formatDate(rangeEnd);
         }
         log.info("Получен запрос от администратора на поиск событий");
-        if (states != null) {
-            events = eventRepository.findAllByAdmin(users, states, categories, newRangeStart, newRangeEnd, from, size);
-            List<Event> eventsAddViews = processingEvents.addViewsInEventsList(events, request);
-            List<Event> newEvents = processingEvents.confirmRequests(eventsAddViews);
-            return newEvents.stream().map(EventMapper::eventToEventFullDto).collect(Collectors.toList());
-        } else {
-            events = eventRepository.findAllByAdminAndState(users, null, categories, newRangeStart, newRangeEnd, page);
-            List<Event> eventsAddViews = processingEvents.addViewsInEventsList(events, request);
-            List<Event> newEvents = processingEvents.confirmRequests(eventsAddViews);
-            return newEvents.stream().map(EventMapper::eventToEventFullDto).collect(Collectors.toList());
-        }
+        List<Event> events = eventRepository.findAllByAdmin(users, eventStates, categories, newRangeStart, newRangeEnd,
+                EventCursor.decode(cursor), from, size);
+        if (events.isEmpty()) {
+            return Collections.emptyList();
+        }
+        EventCursor.writeNext(events, size, response);
+        List<Event> newEvents = processingEvents.addViewsInEventsList(events, request);
+        return newEvents.stream().map(EventMapper::eventToEventFullDto).collect(Collectors.toList());
     }
 
     @Override
@@ -130,6 +132,20 @@ public class EventAdminServiceImp implements EventAdminService {
         }
     }
 
+    /**
+     * Метод разбора состояния события из параметра запроса
+     *
+     * @param state Состояние события в виде String
+     * @return Состояние события
+     */
+    private EventState parseState(String state) {
+        try {
+            return EventState.valueOf(state);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Неизвестное состояние события: " + state);
+        }
+    }
+
     /**
      * Метод проверки времени и даты от текущего времени
      *
@@ -63,8 +63,7 @@ public class EventPrivateServiceImp implements EventPrivateService {
 
         Pageable pageable = PageRequest.of(from, size);
         List<Event> events = eventRepository.findAllByInitiatorId(userId, pageable);
-        List<Event> eventsAddViews = processingEvents.addViewsInEventsList(events, request);
-        List<Event> newEvents = processingEvents.confirmRequests(eventsAddViews);
+        List<Event> newEvents = processingEvents.addViewsInEventsList(events, request);
         log.info("Получен приватный запрос на получение всех событий для пользователя с id: {}", userId);
         return newEvents.stream().map(EventMapper::eventToEventShortDto).collect(Collectors.toList());
     }
@@ -77,7 +76,7 @@ public class EventPrivateServiceImp implements EventPrivateService {
                 .orElseThrow(() -> new ResourceNotFoundException("Событие с id " + eventId + " не найдено"));
 
         checkOwnerEvent(event, user);
-        addEventConfirmRequestAndSetViews(event, request);
+        addEventViews(event, request);
 
         log.info("Получен приватный запрос на получение события с id: {} для пользователя с id: {}", eventId, userId);
         return EventMapper.eventToEventFullDto(event);
@@ -113,7 +112,7 @@ public class EventPrivateServiceImp implements EventPrivateService {
                 new ResourceNotFoundException("Событие с id " + eventId + " не найдено.")
         );
         checkOwnerEvent(event, user);
-        addEventConfirmRequestAndSetViews(event, request);
+        addEventViews(event, request);
         log.info("Получен приватный запрос на получение события с id: {} для пользователя с id: {}", eventId, userId);
         return EventMapper.eventToEventFullDto(event);
     }
@@ -160,7 +159,7 @@ public class EventPrivateServiceImp implements EventPrivateService {
             event.setTitle(updateEvent.getTitle());
         }
         if (event.getState().equals(EventState.PUBLISHED)) {
-            addEventConfirmRequestAndSetViews(event, request);
+            addEventViews(event, request);
         } else {
             event.setViews(0L);
             event.setConfirmedRequests(0L);
@@ -218,7 +217,7 @@ public class EventPrivateServiceImp implements EventPrivateService {
 
     private void initializeEventViewsAndRequests(Event event, HttpServletRequest request) {
         if (event.getState().equals(EventState.PUBLISHED)) {
-            addEventConfirmRequestAndSetViews(event, request);
+            addEventViews(event, request);
         } else {
             event.setViews(0L);
             event.setConfirmedRequests(0L);
@@ -247,19 +246,16 @@ public class EventPrivateServiceImp implements EventPrivateService {
         List<ParticipationRequestDto> confirmedRequests = new ArrayList<>();
         List<ParticipationRequestDto> rejectedRequests = new ArrayList<>();
 
-        long count = processingEvents.confirmedRequestsForOneEvent(event, RequestStatus.CONFIRMED);
-        event.setConfirmedRequests(count);
-
         for (Request request : requests) {
             if (!request.getStatus().equals(RequestStatus.PENDING)) {
                 throw new ConflictRequestException("Статус заявки " + request.getId() + " не позволяет ее одобрить, текущий статус " + request.getStatus());
             }
 
-            if (event.getConfirmedRequests() < event.getParticipantLimit()) {
+            // Лимит проверяется условием обновления строки события, а не прочитанным без блокировки счетчиком
+            if (eventRepository.addConfirmedRequestsWithinLimit(event.getId(), 1L) > 0) {
                 request.setStatus(RequestStatus.CONFIRMED);
                 confirmedRequests.add(RequestMapper.requestToParticipationRequestDto(request));
                 requestRepository.save(request);
-                event.setConfirmedRequests(event.getConfirmedRequests() + 1L);
             } else {
                 request.setStatus(RequestStatus.REJECTED);
                 rejectedRequests.add(RequestMapper.requestToParticipationRequestDto(request));
@@ -353,16 +349,14 @@ public class EventPrivateServiceImp implements EventPrivateService {
     }
 
     /**
-     * Метод добавления подтверждённых событий
+     * Метод добавления просмотров события, количество подтверждённых заявок хранится в самом событии
      *
      * @param event Объект события
      */
-    private void addEventConfirmRequestAndSetViews(Event event, HttpServletRequest request) {
+    private void addEventViews(Event event, HttpServletRequest request) {
         if (event == null)
             throw new IllegalArgumentException("Событие не должно быть null");
 
-        long count = processingEvents.confirmedRequestsForOneEvent(event, RequestStatus.CONFIRMED);
-        event.setConfirmedRequests(count);
         long views = processingEvents.searchViews(event, request);
         event.setViews(views);
     }
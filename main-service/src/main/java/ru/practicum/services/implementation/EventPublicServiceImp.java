@@ -13,12 +13,14 @@ import ru.practicum.mappers.EventMapper;
 import ru.practicum.models.Event;
 import ru.practicum.models.dto.EventFullDto;
 import ru.practicum.models.dto.EventShortDto;
+import ru.practicum.models.enums.EventSort;
 import ru.practicum.models.enums.EventState;
-import ru.practicum.models.enums.RequestStatus;
 import ru.practicum.repositories.EventRepository;
 import ru.practicum.services.EventPublicService;
+import ru.practicum.util.EventCursor;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collections;
@@ -43,28 +45,32 @@ public class EventPublicServiceImp implements EventPublicService {
     @Override
     public List<EventShortDto> get(String text, List<Long> categories, Boolean paid, String rangeStart,
                                    String rangeEnd, boolean onlyAvailable, String sort,
-                                   Integer from, Integer size, HttpServletRequest request) {
-        checkDateTime(rangeStart == null ? null : LocalDateTime.parse(rangeStart, DateTimeFormatter.ofPattern(DATE_TIME_FORMAT)),
-                rangeEnd == null ? null : LocalDateTime.parse(rangeEnd, DateTimeFormatter.ofPattern(DATE_TIME_FORMAT)));
+                                   Integer from, Integer size, String cursor,
+                                   HttpServletRequest request, HttpServletResponse response) {
+        LocalDateTime start = rangeStart == null ? null : LocalDateTime.parse(rangeStart, DateTimeFormatter.ofPattern(DATE_TIME_FORMAT));
+        LocalDateTime end = rangeEnd == null ? null : LocalDateTime.parse(rangeEnd, DateTimeFormatter.ofPattern(DATE_TIME_FORMAT));
+        checkDateTime(start, end);
         HitDto hitDto = HitDto.builder()
                 .app(appName)
                 .uri("/events")
                 .ip(request.getRemoteAddr())
                 .timestamp(LocalDateTime.now().format(DateTimeFormatter.ofPattern(DATE_TIME_FORMAT)))
                 .build();
-        statsClient.hitRequest(hitDto);
-        text = text == null ? "" : text;
-        List<Event> events = eventRepository.findAllByPublic(text, categories, paid, rangeStart, rangeEnd, sort, from, size);
+        statsClient.sendHit(hitDto);
+        EventSort eventSort = parseSort(sort);
+        if (eventSort == EventSort.VIEWS && cursor != null) {
+            throw new BadRequestException("Параметр cursor поддерживается только для сортировки EVENT_DATE");
+        }
+        List<Event> events = eventRepository.findAllByPublic(text, categories, paid, start, end, onlyAvailable,
+                eventSort, EventCursor.decode(cursor), from, size);
+        if (eventSort == EventSort.EVENT_DATE) {
+            EventCursor.writeNext(events, size, response);
+        }
         if (events.isEmpty()) {
             return Collections.emptyList();
         }
-        List<Event> eventsAddViews = processingEvents.addViewsInEventsList(events, request);
-        List<Event> newEvents = processingEvents.confirmRequests(eventsAddViews);
+        List<Event> newEvents = processingEvents.addViewsInEventsList(events, request);
         log.info("Получен публичный запрос на получение всех событий");
-        if (!onlyAvailable) {
-            return newEvents.stream().filter(e -> e.getParticipantLimit() >= e.getConfirmedRequests())
-                    .map(EventMapper::eventToEventShortDto).collect(Collectors.toList());
-        }
         return newEvents.stream().map(EventMapper::eventToEventShortDto).collect(Collectors.toList());
     }
 
@@ -76,17 +82,32 @@ public class EventPublicServiceImp implements EventPublicService {
                 .ip(request.getRemoteAddr())
                 .timestamp(LocalDateTime.now().format(DateTimeFormatter.ofPattern(DATE_TIME_FORMAT)))
                 .build();
-        statsClient.hitRequest(hitDto);
+        statsClient.sendHit(hitDto);
         Event event = eventRepository.findEventByIdAndStateIs(id, EventState.PUBLISHED)
                 .orElseThrow(() -> new ResourceNotFoundException("Событие c id: " + id + " не найдено"));
-        long count = processingEvents.confirmedRequestsForOneEvent(event, RequestStatus.CONFIRMED);
-        event.setConfirmedRequests(count);
         long views = processingEvents.searchViews(event, request);
         event.setViews(views);
         log.info("Получен публичный запрос на получение события по id: {}", id);
         return EventMapper.eventToEventFullDto(event);
     }
 
+    /**
+     * Метод определения варианта сортировки
+     *
+     * @param sort Вариант сортировки из запроса
+     * @return Вариант сортировки, по умолчанию - по дате события
+     */
+    private EventSort parseSort(String sort) {
+        if (sort == null) {
+            return EventSort.EVENT_DATE;
+        }
+        try {
+            return EventSort.valueOf(sort);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Неизвестный вариант сортировки: " + sort);
+        }
+    }
+
     /**
      * Метод проверки даты и времени
      *
@@ -0,0 +1,213 @@
+package ru.practicum.services.implementation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.exp.stat.client.StatsClient;
+import ru.practicum.exp.stat.dto.ViewStatsDto;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Класс EventViewsCache для кэширования количества просмотров событий.
+ * Ключ - uri события в сервисе статистики. Просмотры каждого события считаются с момента его собственной
+ * публикации, поэтому список событий и отдельное событие читают одну запись; значение с другим началом
+ * периода (событие опубликовано после загрузки) считается промахом. Значение моложе ttl отдается из кэша,
+ * значение старше ttl, но моложе ttl + stale, отдается из кэша с обновлением в фоне, более старые значения
+ * и промахи запрашиваются у сервиса статистики одним запросом на каждое начало периода.
+ */
+@Slf4j
+@Component
+public class EventViewsCache {
+    private final StatsClient statsClient;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final Map<String, Entry> entries;
+    private final ThreadPoolExecutor refresher;
+    private final Counter hitCounter;
+    private final Counter staleCounter;
+    private final Counter missCounter;
+    private final Counter refreshCounter;
+    private final Counter refreshFailureCounter;
+
+    public EventViewsCache(StatsClient statsClient,
+                           MeterRegistry meterRegistry,
+                           @Value("${views.cache.enabled:true}") boolean enabled,
+                           @Value("${views.cache.ttl-ms:5000}") long ttlMillis,
+                           @Value("${views.cache.stale-ms:60000}") long staleMillis,
+                           @Value("${views.cache.max-size:10000}") int maxSize) {
+        this.statsClient = statsClient;
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.staleNanos = TimeUnit.MILLISECONDS.toNanos(staleMillis);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+        // Одна фоновая задача обновления за раз, при заполненной очереди обновление пропускается до следующего запроса
+        this.refresher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(100),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "views-cache-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.hitCounter = requests("hit", meterRegistry);
+        this.staleCounter = requests("stale", meterRegistry);
+        this.missCounter = requests("miss", meterRegistry);
+        this.refreshCounter = Counter.builder("ewm.views.cache.refresh").tag("result", "success")
+                .description("Фоновые обновления кэша просмотров")
+                .register(meterRegistry);
+        this.refreshFailureCounter = Counter.builder("ewm.views.cache.refresh").tag("result", "failure")
+                .description("Фоновые обновления кэша просмотров")
+                .register(meterRegistry);
+        Gauge.builder("ewm.views.cache.size", this, EventViewsCache::size)
+                .description("Количество uri в кэше просмотров")
+                .register(meterRegistry);
+    }
+
+    private static Counter requests(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("ewm.views.cache.requests").tag("result", result)
+                .description("Обращения к кэшу просмотров")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Метод получения количества уникальных просмотров по списку uri
+     *
+     * @param starts Начало периода для запроса к сервису статистики по uri события
+     * @return Количество просмотров по каждому uri, 0 для uri без просмотров
+     */
+    public Map<String, Long> getViews(Map<String, LocalDateTime> starts) {
+        if (!enabled) {
+            return fetch(starts);
+        }
+        long now = System.nanoTime();
+        Map<String, Long> result = new HashMap<>();
+        Map<String, LocalDateTime> missing = new HashMap<>();
+        Map<String, LocalDateTime> stale = new HashMap<>();
+        synchronized (entries) {
+            starts.forEach((uri, start) -> {
+                Entry entry = entries.get(uri);
+                long age = entry == null || !entry.start.equals(start) ? Long.MAX_VALUE : now - entry.loadedAt;
+                if (age < ttlNanos) {
+                    hitCounter.increment();
+                    result.put(uri, entry.views);
+                } else if (age < ttlNanos + staleNanos) {
+                    staleCounter.increment();
+                    result.put(uri, entry.views);
+                    if (!entry.refreshing) {
+                        entry.refreshing = true;
+                        stale.put(uri, start);
+                    }
+                } else {
+                    missCounter.increment();
+                    missing.put(uri, start);
+                }
+            });
+        }
+        if (!missing.isEmpty()) {
+            Map<String, Long> loaded = fetch(missing);
+            put(loaded, missing, now);
+            result.putAll(loaded);
+        }
+        if (!stale.isEmpty()) {
+            try {
+                refresher.execute(() -> refresh(stale));
+            } catch (RejectedExecutionException e) {
+                // Пропущенное обновление повторится при следующем обращении к устаревшим значениям
+                clearRefreshing(stale.keySet());
+            }
+        }
+        return result;
+    }
+
+    private void refresh(Map<String, LocalDateTime> starts) {
+        long now = System.nanoTime();
+        try {
+            put(fetch(starts), starts, now);
+            refreshCounter.increment();
+        } catch (Exception e) {
+            refreshFailureCounter.increment();
+            log.warn("Не удалось обновить кэш просмотров: {}", e.getMessage());
+            clearRefreshing(starts.keySet());
+        }
+    }
+
+    private void clearRefreshing(Collection<String> uris) {
+        synchronized (entries) {
+            uris.forEach(uri -> {
+                Entry entry = entries.get(uri);
+                if (entry != null) {
+                    entry.refreshing = false;
+                }
+            });
+        }
+    }
+
+    /**
+     * Метод запроса просмотров у сервиса статистики, uri с одинаковым началом периода запрашиваются вместе
+     */
+    private Map<String, Long> fetch(Map<String, LocalDateTime> starts) {
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Map<LocalDateTime, List<String>> urisByStart = new TreeMap<>();
+        starts.forEach((uri, start) -> urisByStart.computeIfAbsent(start, s -> new ArrayList<>()).add(uri));
+        Map<String, Long> views = new HashMap<>();
+        urisByStart.forEach((start, uris) -> {
+            uris.forEach(uri -> views.put(uri, 0L));
+            List<ViewStatsDto> stats = statsClient.queryStats(start, end, uris, true);
+            if (stats != null) {
+                stats.forEach(s -> views.merge(s.getUri(), s.getHits(), Long::sum));
+            }
+        });
+        return views;
+    }
+
+    private void put(Map<String, Long> views, Map<String, LocalDateTime> starts, long loadedAt) {
+        synchronized (entries) {
+            views.forEach((uri, count) -> entries.put(uri, new Entry(count, starts.get(uri), loadedAt)));
+        }
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static class Entry {
+        private final long views;
+        private final LocalDateTime start;
+        private final long loadedAt;
+        private boolean refreshing;
+
+        private Entry(long views, LocalDateTime start, long loadedAt) {
+            this.views = views;
+            this.start = start;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
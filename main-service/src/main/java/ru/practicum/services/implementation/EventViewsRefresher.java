@@ -0,0 +1,84 @@
+package ru.practicum.services.implementation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.exp.stat.client.StatsClient;
+import ru.practicum.exp.stat.dto.ViewStatsDto;
+import ru.practicum.repositories.EventRepository;
+import ru.practicum.repositories.EventViewsRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Класс EventViewsRefresher для периодического обновления снимка просмотров опубликованных событий.
+ * События обходятся пачками по id, на каждую пачку выполняется один запрос к сервису статистики.
+ */
+@Slf4j
+@Component
+public class EventViewsRefresher {
+    private static final String EVENT_URI_PREFIX = "/events/";
+    private static final LocalDateTime START = LocalDateTime.of(LocalDate.of(1900, 1, 1), LocalTime.of(0, 0, 1));
+
+    private final EventRepository eventRepository;
+    private final EventViewsRepository eventViewsRepository;
+    private final StatsClient statsClient;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public EventViewsRefresher(EventRepository eventRepository,
+                               EventViewsRepository eventViewsRepository,
+                               StatsClient statsClient,
+                               @Value("${views.snapshot.enabled:true}") boolean enabled,
+                               @Value("${views.snapshot.batch-size:1000}") int batchSize) {
+        this.eventRepository = eventRepository;
+        this.eventViewsRepository = eventViewsRepository;
+        this.statsClient = statsClient;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Метод обновления снимка просмотров, ошибка сервиса статистики прерывает обход до следующего запуска
+     */
+    @Scheduled(initialDelayString = "${views.snapshot.initial-delay-ms:10000}",
+            fixedDelayString = "${views.snapshot.interval-ms:60000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        long afterId = 0;
+        int refreshed = 0;
+        try {
+            List<Long> ids = eventRepository.findPublishedIdsAfter(afterId, batchSize);
+            while (!ids.isEmpty()) {
+                eventViewsRepository.saveAll(fetchViews(ids));
+                refreshed += ids.size();
+                afterId = ids.get(ids.size() - 1);
+                ids = eventRepository.findPublishedIdsAfter(afterId, batchSize);
+            }
+            log.debug("Снимок просмотров обновлен для {} событий", refreshed);
+        } catch (Exception e) {
+            log.warn("Не удалось обновить снимок просмотров после события с id: {}: {}", afterId, e.getMessage());
+        }
+    }
+
+    private Map<Long, Long> fetchViews(List<Long> ids) {
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<ViewStatsDto> stats = statsClient.queryStatsByIds(START, end, EVENT_URI_PREFIX, ids, true);
+        Map<Long, Long> views = new HashMap<>();
+        ids.forEach(id -> views.put(id, 0L));
+        if (stats != null) {
+            stats.forEach(s -> views.merge(Long.parseLong(s.getUri().substring(EVENT_URI_PREFIX.length())),
+                    s.getHits(), Long::sum));
+        }
+        return views;
+    }
+}
@@ -67,7 +67,7 @@ public class RequestPrivateServiceImp implements RequestPrivateService {
         }
 
         if (event.getState() == EventState.PUBLISHED) {
-            addEventConfirmRequestAndSetViews(event, httpServletRequest);
+            addEventViews(event, httpServletRequest);
         } else {
             event.setViews(0L);
             event.setConfirmedRequests(0L);
@@ -77,10 +77,15 @@ public class RequestPrivateServiceImp implements RequestPrivateService {
         checkParticipantLimit(event);
         checkEventUser(userId, eventId);
         Request request = createRequest(user, event);
+        if (request.getStatus() == RequestStatus.CONFIRMED
+                && eventRepository.addConfirmedRequestsWithinLimit(eventId, 1L) == 0) {
+            throw participantLimitExceeded(event);
+        }
         try {
             eventRepository.save(event);
+            Request savedRequest = requestRepository.save(request);
             log.info("Получен запрос на добавление запроса от пользователя с id: {} для события id: {}", userId, eventId);
-            return RequestMapper.requestToParticipationRequestDto(requestRepository.save(request));
+            return RequestMapper.requestToParticipationRequestDto(savedRequest);
         } catch (DataAccessException e) {
             throw new BadRequestException("Ошибка при работе с базой данных");
         } catch (IllegalArgumentException e) {
@@ -109,18 +114,23 @@ public class RequestPrivateServiceImp implements RequestPrivateService {
             throw new ConflictRequestException("Пользователь с id: " + userId
                     + "не подавал заявку с id: " + request.getId());
         }
+        boolean wasConfirmed = request.getStatus() == RequestStatus.CONFIRMED;
         request.setStatus(RequestStatus.CANCELED);
         Event event = request.getEvent();
         if (event.getState().equals(EventState.PUBLISHED)) {
-            addEventConfirmRequestAndSetViews(event, httpServletRequest);
+            addEventViews(event, httpServletRequest);
         } else {
             event.setViews(0L);
             event.setConfirmedRequests(0L);
         }
         try {
             eventRepository.save(event);
+            Request savedRequest = requestRepository.save(request);
+            if (wasConfirmed) {
+                eventRepository.addConfirmedRequests(event.getId(), -1L);
+            }
             log.info("Получен запрос на обновление запроса с id: {} от пользователя с id: {}", requestId, userId);
-            return RequestMapper.requestToParticipationRequestDto(requestRepository.save(request));
+            return RequestMapper.requestToParticipationRequestDto(savedRequest);
         } catch (DataAccessException e) {
             throw new BadRequestException("Ошибка при работе с базой данных");
         } catch (IllegalArgumentException e) {
@@ -167,25 +177,28 @@ public class RequestPrivateServiceImp implements RequestPrivateService {
     }
 
     /**
-     * Метод проверки лимита заявок на участие в событии
+     * Метод предварительной проверки лимита заявок на участие в событии по прочитанному счетчику.
+     * Подтверждаемая сразу заявка проверяется повторно условным увеличением счетчика в строке события
      *
      * @param event Объект события
      */
     private void checkParticipantLimit(Event event) {
-        if (event.getParticipantLimit() == event.getConfirmedRequests() && event.getParticipantLimit() != 0) {
-            throw new ConflictRequestException("Событие с id: " + event.getId()
-                    + " нельзя подавать запросы на участие, превышен лимит заявок");
+        if (event.getParticipantLimit() != 0 && event.getConfirmedRequests() >= event.getParticipantLimit()) {
+            throw participantLimitExceeded(event);
         }
     }
 
+    private ConflictRequestException participantLimitExceeded(Event event) {
+        return new ConflictRequestException("Событие с id: " + event.getId()
+                + " нельзя подавать запросы на участие, превышен лимит заявок");
+    }
+
     /**
-     * Метод добавления подтверждённых событий
+     * Метод добавления просмотров события, количество подтверждённых заявок хранится в самом событии
      *
      * @param event Объект события
      */
-    private void addEventConfirmRequestAndSetViews(Event event, HttpServletRequest request) {
-        long count = processingEvents.confirmedRequestsForOneEvent(event, RequestStatus.CONFIRMED);
-        event.setConfirmedRequests(count);
+    private void addEventViews(Event event, HttpServletRequest request) {
         long views = processingEvents.searchViews(event, request);
         event.setViews(views);
     }
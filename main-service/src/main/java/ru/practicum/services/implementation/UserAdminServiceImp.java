@@ -5,6 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.exceptions.BadRequestException;
@@ -37,10 +38,10 @@ public class UserAdminServiceImp implements UserAdminService {
             throw new BadRequestException("Параметры 'from' и 'size' должны быть положительными");
         }
 
-        Pageable pageable = PageRequest.of(from / size, size);
+        Pageable pageable = PageRequest.of(from / size, size, Sort.by("id"));
         if (ids == null || ids.isEmpty()) {
             log.info("Получен запрос на получение списка пользователей без id");
-            return userRepository.findAll(pageable).stream()
+            return userRepository.findAllBy(pageable).stream()
                     .map(UserMapper::userToDto)
                     .collect(Collectors.toList());
         } else {
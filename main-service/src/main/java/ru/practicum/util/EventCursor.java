@@ -0,0 +1,64 @@
+package ru.practicum.util;
+
+import lombok.Value;
+import ru.practicum.exceptions.BadRequestException;
+import ru.practicum.models.Event;
+
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Класс EventCursor - позиция в списке событий, упорядоченном по дате события и id.
+ * Клиенту передается непрозрачный токен, следующая страница начинается строго после этой позиции,
+ * поэтому запрос не пропускает предыдущие строки, как OFFSET.
+ */
+@Value
+public class EventCursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    LocalDateTime eventDate;
+    long id;
+
+    /**
+     * Статический метод разбора токена
+     *
+     * @param token Токен из параметра cursor, может быть null
+     * @return Позиция или null, если токен не задан
+     */
+    public static EventCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            LocalDateTime eventDate = DateFormatter.formatDate(value.substring(0, separator));
+            return new EventCursor(eventDate, Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Некорректное значение параметра cursor: " + token);
+        }
+    }
+
+    /**
+     * Статический метод передачи токена следующей страницы в заголовке ответа.
+     * Токен передается, только если страница заполнена полностью
+     *
+     * @param events   Список событий текущей страницы в порядке выдачи из БД
+     * @param size     Размер страницы
+     * @param response Ответ
+     */
+    public static void writeNext(List<Event> events, int size, HttpServletResponse response) {
+        if (response == null || events.isEmpty() || events.size() < size) {
+            return;
+        }
+        Event last = events.get(events.size() - 1);
+        String value = last.getEventDate().format(formatter) + "|" + last.getId();
+        response.setHeader(NEXT_CURSOR_HEADER,
+                Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8)));
+    }
+}
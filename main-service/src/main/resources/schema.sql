@@ -25,10 +25,22 @@ CREATE TABLE IF NOT EXISTS events(
                                 request_moderation BOOLEAN NOT NULL,
                                 state VARCHAR(10) NOT NULL,
                                 title VARCHAR(120) NOT NULL,
+                                confirmed_requests BIGINT NOT NULL DEFAULT 0,
                                 CONSTRAINT uq_events UNIQUE (title),
                                 CONSTRAINT fk_category_id FOREIGN KEY (category_id) REFERENCES categories (id) ON DELETE CASCADE,
                                 CONSTRAINT fk_initiator_id FOREIGN KEY (initiator_id) REFERENCES users (id) ON DELETE CASCADE
 );
+ALTER TABLE events ADD COLUMN IF NOT EXISTS confirmed_requests BIGINT NOT NULL DEFAULT 0;
+CREATE INDEX IF NOT EXISTS idx_events_event_date ON events (event_date, id);
+CREATE INDEX IF NOT EXISTS idx_events_initiator_id ON events (initiator_id);
+CREATE INDEX IF NOT EXISTS idx_events_category_id ON events (category_id, event_date);
+CREATE INDEX IF NOT EXISTS idx_events_state ON events (state, event_date);
+CREATE TABLE IF NOT EXISTS event_views(
+                                event_id BIGINT PRIMARY KEY,
+                                views BIGINT NOT NULL,
+                                CONSTRAINT fk_event_views_event_id FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE
+);
+CREATE INDEX IF NOT EXISTS idx_event_views_views ON event_views (views DESC NULLS LAST, event_id);
 CREATE TABLE IF NOT EXISTS requests(
                                 id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
                                 created TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -38,6 +50,9 @@ CREATE TABLE IF NOT EXISTS requests(
                                 CONSTRAINT fk_event_id FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE,
                                 CONSTRAINT fk_requester_id FOREIGN KEY (requester_id) REFERENCES users (id) ON DELETE CASCADE
 );
+DROP INDEX IF EXISTS idx_requests_event_id;
+CREATE INDEX IF NOT EXISTS idx_requests_event_id_status ON requests (event_id, status);
+CREATE INDEX IF NOT EXISTS idx_requests_requester_id ON requests (requester_id, event_id);
 CREATE TABLE IF NOT EXISTS compilations(
                                 id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
                                 pinned BOOLEAN NOT NULL,
@@ -50,6 +65,7 @@ CREATE TABLE IF NOT EXISTS compilation_events(
                                 CONSTRAINT fk_compilation_id FOREIGN KEY (compilation_id) REFERENCES compilations (id) ON DELETE CASCADE,
                                 CONSTRAINT fk_event_id FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE
 );
+CREATE INDEX IF NOT EXISTS idx_compilation_events_event_id ON compilation_events (event_id);
 CREATE TABLE IF NOT EXISTS comments(
                                        id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
                                        text VARCHAR(7000) NOT NULL,
@@ -59,4 +75,6 @@ CREATE TABLE IF NOT EXISTS comments(
                                        state VARCHAR(10) NOT NULL,
                                        CONSTRAINT fk_author_id FOREIGN KEY (author_id) REFERENCES users (id) ON DELETE CASCADE,
                                        CONSTRAINT fk_event_id FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+CREATE INDEX IF NOT EXISTS idx_comments_event_id ON comments (event_id, state);
+CREATE INDEX IF NOT EXISTS idx_comments_author_id ON comments (author_id);
\ No newline at end of file
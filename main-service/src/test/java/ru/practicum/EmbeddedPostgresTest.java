@@ -0,0 +1,44 @@
+package ru.practicum;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.practicum.exp.stat.client.StatsClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Базовый класс тестов, которым нужен PostgreSQL: планы запросов и частичные индексы H2 не проверить.
+ * Сервер запускается один раз на все тесты и останавливается вместе с JVM.
+ */
+@SpringBootTest
+public abstract class EmbeddedPostgresTest {
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @MockBean
+    protected StatsClient statsClient;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.driverClassName", () -> "org.postgresql.Driver");
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.sql.init.schema-locations", () -> "classpath:schema.sql,classpath:schema-postgresql.sql");
+        registry.add("stats-module-url", () -> "http://localhost:9090");
+        registry.add("app.name", () -> "ewm-main-service");
+        registry.add("events.confirmed-requests.reconcile.enabled", () -> "false");
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package ru.practicum.controllers;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.EmbeddedPostgresTest;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверка количества SQL-запросов на один вызов эндпоинта по статистике Hibernate.
+ * Границы зафиксированы и не зависят от размера страницы: их превышение означает
+ * появление ленивой загрузки связей для каждой строки ответа (N+1).
+ */
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatementCountTest extends EmbeddedPostgresTest {
+    // Событие 12 опубликовано, его инициатор - пользователь 13, заявки подавал пользователь 78
+    private static final long EVENT_ID = 12;
+    private static final long INITIATOR_ID = 13;
+    private static final long REQUESTER_ID = 78;
+    private static final long AUTHOR_ID = 100;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    void seed() {
+        new ResourceDatabasePopulator(new ClassPathResource("seed-data.sql")).execute(dataSource);
+        // Комментарии разных авторов к одному событию, чтобы страница содержала разные связанные сущности
+        jdbcTemplate.update("INSERT INTO comments (text, created_on, author_id, event_id, state) " +
+                "SELECT 'comment', now(), ?, ?, 'PUBLISHED' FROM generate_series(0, 9) a", AUTHOR_ID, EVENT_ID);
+        jdbcTemplate.update("INSERT INTO comments (text, created_on, author_id, event_id, state) " +
+                "SELECT 'comment', now(), ? + a, ?, 'PUBLISHED' FROM generate_series(1, 9) a", AUTHOR_ID, EVENT_ID);
+    }
+
+    @Test
+    void users() throws Exception {
+        assertStatements("/admin/users?from=0&size=10", 1);
+        assertStatements("/admin/users?ids=1,2,3", 1);
+    }
+
+    @Test
+    void categories() throws Exception {
+        assertStatements("/categories?from=0&size=10", 1);
+        assertStatements("/categories/5", 1);
+    }
+
+    @Test
+    void compilations() throws Exception {
+        // Подборки, их события, затем категории и инициаторы событий пачками по default_batch_fetch_size
+        assertStatements("/compilations?from=0&size=10", 4);
+        assertStatements("/compilations?pinned=true&from=0&size=10", 4);
+        assertStatements("/compilations/5", 1);
+    }
+
+    @Test
+    void events() throws Exception {
+        assertStatements("/events?sort=EVENT_DATE&from=0&size=10", 1);
+        assertStatements("/events?sort=VIEWS&from=0&size=10", 1);
+        assertStatements("/events/" + EVENT_ID, 1);
+        assertStatements("/admin/events?from=0&size=10", 1);
+        assertStatements("/users/" + INITIATOR_ID + "/events?from=0&size=10", 2);
+        assertStatements("/users/" + INITIATOR_ID + "/events/" + EVENT_ID, 2);
+    }
+
+    @Test
+    void requests() throws Exception {
+        assertStatements("/users/" + INITIATOR_ID + "/events/" + EVENT_ID + "/requests", 3);
+        assertStatements("/users/" + REQUESTER_ID + "/requests", 2);
+    }
+
+    @Test
+    void comments() throws Exception {
+        assertStatements("/comments/event/" + EVENT_ID + "?from=0&size=10", 2);
+        assertStatements("/admin/comments/event/" + EVENT_ID + "?from=0&size=10", 2);
+        assertStatements("/private/comments/event/" + EVENT_ID + "/user/" + AUTHOR_ID + "?from=0&size=10", 3);
+        long commentId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM comments", Long.class);
+        assertStatements("/admin/comments/" + commentId, 1);
+    }
+
+    private void assertStatements(String url, long max) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        long count = statistics.getPrepareStatementCount();
+        assertTrue(count <= max, url + ": выполнено запросов " + count + ", допустимо " + max);
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityHashCodeTest {
+    private static final int EVENTS = 10_000;
+
+    @Test
+    void eventsSpreadOverHashSetBuckets() {
+        Set<Event> events = LongStream.rangeClosed(1, EVENTS).mapToObj(EntityHashCodeTest::event)
+                .collect(Collectors.toCollection(HashSet::new));
+
+        assertEquals(EVENTS, events.size());
+        // Одинаковый хэш у всех событий сводил HashSet к одной корзине с линейным поиском
+        assertEquals(EVENTS, events.stream().map(Event::hashCode).distinct().count());
+        for (long id = 1; id <= EVENTS; id++) {
+            assertTrue(events.contains(event(id)));
+        }
+    }
+
+    @Test
+    void copiesWithSameIdAreEqualWithSameHash() {
+        assertEquals(event(5), event(5));
+        assertEquals(event(5).hashCode(), event(5).hashCode());
+        assertEquals(Category.builder().id(5L).build().hashCode(), Category.builder().id(5L).build().hashCode());
+        assertEquals(User.builder().id(5L).build().hashCode(), User.builder().id(5L).build().hashCode());
+    }
+
+    @Test
+    void transientEventEqualsOnlyItself() {
+        Event first = new Event();
+        Event second = new Event();
+
+        assertNotEquals(first, second);
+        assertEquals(first.hashCode(), first.hashCode());
+        assertTrue(new HashSet<>(Set.of(first)).contains(first));
+    }
+
+    private static Event event(long id) {
+        return Event.builder().id(id).build();
+    }
+}
@@ -0,0 +1,299 @@
+package ru.practicum.repositories;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.models.Category;
+import ru.practicum.models.Event;
+import ru.practicum.models.User;
+import ru.practicum.models.enums.CommentState;
+import ru.practicum.models.enums.EventSort;
+import ru.practicum.models.enums.EventState;
+import ru.practicum.models.enums.RequestStatus;
+import ru.practicum.util.EventCursor;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверка планов запросов репозиториев: на наборе данных seed-data.sql ни один запрос
+ * не должен читать таблицу последовательным просмотром. Запросы перехватываются вместе с параметрами
+ * и повторяются через EXPLAIN с теми же значениями. Сверка счетчиков подтвержденных заявок
+ * (findConfirmedRequestsMismatches) не проверяется: она просматривает все события намеренно.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest extends EmbeddedPostgresTest {
+    private static final QueryRecorder RECORDER = new QueryRecorder();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private RequestRepository requestRepository;
+    @Autowired
+    private CompilationRepository compilationRepository;
+    @Autowired
+    private CommentsRepository commentsRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeAll
+    void seed() {
+        new ResourceDatabasePopulator(new ClassPathResource("seed-data.sql")).execute(dataSource);
+    }
+
+    @Test
+    void userQueriesUseIndexes() {
+        assertNoSeqScan(() -> {
+            userRepository.findById(5L);
+            userRepository.existsById(5L);
+            userRepository.findByIdIn(List.of(1L, 2L, 3L), PageRequest.of(0, 10));
+            userRepository.findAllBy(PageRequest.of(100, 10, Sort.by("id")));
+        });
+    }
+
+    @Test
+    void categoryQueriesUseIndexes() {
+        assertNoSeqScan(() -> {
+            categoryRepository.findById(5L);
+            categoryRepository.existsByName("category 5");
+            categoryRepository.findAllBy(PageRequest.of(10, 10, Sort.by("id")));
+        });
+    }
+
+    @Test
+    void eventQueriesUseIndexes() {
+        Category category = categoryRepository.get(5L);
+        assertNoSeqScan(() -> {
+            eventRepository.findById(12L);
+            eventRepository.findAllById(List.of(12L, 13L, 14L));
+            eventRepository.findEventByCategoryIs(category);
+            eventRepository.findAllByInitiatorId(12L, PageRequest.of(0, 10));
+            eventRepository.findEventByIdAndStateIs(12L, EventState.PUBLISHED);
+            eventRepository.findPublishedIdsAfter(50_000L, 1000);
+            eventRepository.lockById(12L);
+            eventRepository.addConfirmedRequests(12L, 1L);
+            eventRepository.setConfirmedRequests(12L, 3L);
+        });
+    }
+
+    @Test
+    void eventSearchQueriesUseIndexes() {
+        LocalDateTime now = LocalDateTime.now();
+        assertNoSeqScan(() -> {
+            eventRepository.findAllByAdmin(null, null, null, null, null, null, 0, 10);
+            eventRepository.findAllByAdmin(List.of(12L, 13L), null, null, null, null, null, 0, 10);
+            eventRepository.findAllByAdmin(null, List.of(EventState.PENDING), List.of(5L, 6L),
+                    now.minusDays(30), now.plusDays(30), null, 0, 10);
+            eventRepository.findAllByAdmin(null, null, null, null, null,
+                    new EventCursor(now.plusDays(10), 500L), 0, 10);
+            eventRepository.findAllByPublic(null, null, null, null, null, false,
+                    EventSort.EVENT_DATE, null, 0, 10);
+            eventRepository.findAllByPublic("6f4922f4", List.of(5L, 6L), true, now.minusDays(30), now.plusDays(30),
+                    true, EventSort.EVENT_DATE, null, 0, 10);
+            eventRepository.findAllByPublic(null, null, null, null, null, false,
+                    EventSort.EVENT_DATE, new EventCursor(now.plusDays(10), 500L), 0, 10);
+            eventRepository.findAllByPublic(null, null, null, null, null, false,
+                    EventSort.VIEWS, null, 0, 10);
+            eventRepository.findAllByPublic(null, null, null, null, null, true,
+                    EventSort.VIEWS, null, 200, 10);
+            eventRepository.findAllByPublic(null, List.of(5L, 6L), null, null, null, true,
+                    EventSort.VIEWS, null, 0, 10);
+            eventRepository.findAllByPublic(null, List.of(5L, 6L), null, null, null, true,
+                    EventSort.VIEWS, null, 20, 10);
+        });
+    }
+
+    @Test
+    void requestQueriesUseIndexes() {
+        Event event = eventRepository.get(12L);
+        User user = userRepository.get(12L);
+        assertNoSeqScan(() -> {
+            requestRepository.findById(5L);
+            requestRepository.findAllByEvent(event);
+            requestRepository.findAllByIdIsIn(List.of(1L, 2L, 3L));
+            requestRepository.findAllByRequesterIs(user);
+            requestRepository.findByRequesterIdAndEventId(12L, 12L);
+            requestRepository.countByEventIdsAndStatus(List.of(12L, 13L), RequestStatus.CONFIRMED);
+        });
+    }
+
+    @Test
+    void compilationQueriesUseIndexes() {
+        assertNoSeqScan(() -> {
+            compilationRepository.findById(5L);
+            compilationRepository.existsById(5L);
+            compilationRepository.findAllByPinnedIs(null, PageRequest.of(10, 10, Sort.by("id")))
+                    .forEach(c -> c.getEvents().size());
+            compilationRepository.findAllByPinnedIs(true, PageRequest.of(10, 10, Sort.by("id")))
+                    .forEach(c -> c.getEvents().size());
+        });
+    }
+
+    @Test
+    void commentQueriesUseIndexes() {
+        Event event = eventRepository.get(12L);
+        User user = userRepository.get(12L);
+        assertNoSeqScan(() -> {
+            commentsRepository.findById(5L);
+            commentsRepository.findByEvent(event, PageRequest.of(0, 10));
+            commentsRepository.findByEventAndStateIsNot(event, CommentState.CANCELED, PageRequest.of(0, 10));
+            commentsRepository.findByEventAndAuthor(event, user, PageRequest.of(0, 10));
+        });
+    }
+
+    /**
+     * Выполняет запросы в откатываемой транзакции и проверяет план каждого из них
+     */
+    private void assertNoSeqScan(Runnable queries) {
+        RECORDER.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                queries.run();
+                status.setRollbackOnly();
+            });
+        } finally {
+            RECORDER.stop();
+        }
+        List<RecordedQuery> recorded = RECORDER.getQueries();
+        assertFalse(recorded.isEmpty(), "Запросы не перехвачены");
+        List<String> failures = new ArrayList<>();
+        for (RecordedQuery query : recorded) {
+            List<String> relations = findSeqScans(explain(query));
+            if (!relations.isEmpty()) {
+                failures.add("Seq Scan " + relations + ": " + query.sql);
+            }
+        }
+        assertTrue(failures.isEmpty(), String.join("\n", failures));
+    }
+
+    private JsonNode explain(RecordedQuery query) {
+        return jdbcTemplate.execute((ConnectionCallback<JsonNode>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + query.sql)) {
+                for (ParameterSetOperation operation : query.params) {
+                    operation.getMethod().invoke(statement, operation.getArgs());
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    return MAPPER.readTree(rs.getString(1)).get(0).get("Plan");
+                }
+            } catch (ReflectiveOperationException | java.io.IOException e) {
+                throw new IllegalStateException("Не удалось получить план запроса " + query.sql, e);
+            }
+        });
+    }
+
+    private static List<String> findSeqScans(JsonNode plan) {
+        List<String> relations = new ArrayList<>();
+        if ("Seq Scan".equals(plan.path("Node Type").asText())) {
+            relations.add(plan.path("Relation Name").asText());
+        }
+        for (JsonNode child : plan.path("Plans")) {
+            relations.addAll(findSeqScans(child));
+        }
+        return relations;
+    }
+
+    @TestConfiguration
+    static class RecordingDataSourceConfig {
+        @Bean
+        static BeanPostProcessor recordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource) {
+                        return ProxyDataSourceBuilder.create((DataSource) bean).listener(RECORDER).build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Запрос и параметры его первого выполнения
+     */
+    private static class RecordedQuery {
+        private final String sql;
+        private final List<ParameterSetOperation> params;
+
+        private RecordedQuery(String sql, List<ParameterSetOperation> params) {
+            this.sql = sql;
+            this.params = params;
+        }
+    }
+
+    /**
+     * Перехватчик запросов, изменяющие данные INSERT не проверяются: они не читают таблиц
+     */
+    private static class QueryRecorder implements QueryExecutionListener {
+        private final List<RecordedQuery> queries = new ArrayList<>();
+        private volatile boolean recording;
+
+        private synchronized void start() {
+            queries.clear();
+            recording = true;
+        }
+
+        private void stop() {
+            recording = false;
+        }
+
+        private synchronized List<RecordedQuery> getQueries() {
+            return new ArrayList<>(queries);
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public synchronized void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (!recording) {
+                return;
+            }
+            for (QueryInfo queryInfo : queryInfoList) {
+                String sql = queryInfo.getQuery().trim();
+                if (sql.regionMatches(true, 0, "insert", 0, 6)) {
+                    continue;
+                }
+                List<List<ParameterSetOperation>> params = queryInfo.getParametersList();
+                queries.add(new RecordedQuery(sql, params.isEmpty() ? List.of() : params.get(0)));
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.practicum.services.implementation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.exp.stat.client.StatsClient;
+import ru.practicum.exp.stat.dto.ViewStatsDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Проверка, что просмотры каждого события считаются с момента его публикации,
+ * а список событий и отдельное событие читают одну запись кэша
+ */
+class EventViewsCacheTest {
+    private static final LocalDateTime UNPUBLISHED = LocalDateTime.of(1900, 1, 1, 0, 0, 1);
+    private static final LocalDateTime FIRST_PUBLISHED = LocalDateTime.of(2023, 1, 1, 10, 0);
+    private static final LocalDateTime SECOND_PUBLISHED = LocalDateTime.of(2023, 2, 1, 10, 0);
+
+    private final StatsClient statsClient = mock(StatsClient.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EventViewsCache cache = new EventViewsCache(statsClient, meterRegistry, true, 60_000, 60_000, 100);
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void queriesEachEventFromItsOwnPublication() {
+        when(statsClient.queryStats(eq(FIRST_PUBLISHED), any(), eq(List.of("/events/1")), anyBoolean()))
+                .thenReturn(List.of(new ViewStatsDto("ewm-main-service", "/events/1", 5L)));
+        when(statsClient.queryStats(eq(SECOND_PUBLISHED), any(), eq(List.of("/events/2")), anyBoolean()))
+                .thenReturn(List.of());
+
+        Map<String, Long> views = cache.getViews(Map.of("/events/1", FIRST_PUBLISHED, "/events/2", SECOND_PUBLISHED));
+
+        assertEquals(Map.of("/events/1", 5L, "/events/2", 0L), views);
+        verify(statsClient).queryStats(eq(FIRST_PUBLISHED), any(), eq(List.of("/events/1")), eq(true));
+        verify(statsClient).queryStats(eq(SECOND_PUBLISHED), any(), eq(List.of("/events/2")), eq(true));
+    }
+
+    @Test
+    void listAndSingleEventShareEntry() {
+        when(statsClient.queryStats(eq(FIRST_PUBLISHED), any(), eq(List.of("/events/1")), anyBoolean()))
+                .thenReturn(List.of(new ViewStatsDto("ewm-main-service", "/events/1", 3L)));
+
+        cache.getViews(Map.of("/events/1", FIRST_PUBLISHED, "/events/2", SECOND_PUBLISHED));
+        for (int i = 0; i < 8; i++) {
+            assertEquals(3L, cache.getViews(Map.of("/events/1", FIRST_PUBLISHED)).get("/events/1"));
+        }
+
+        verify(statsClient, times(2)).queryStats(any(), any(), any(), anyBoolean());
+        verifyNoMoreInteractions(statsClient);
+        assertEquals(8, requests("hit"));
+        assertEquals(2, requests("miss"));
+    }
+
+    @Test
+    void publicationChangesStartAndMissesEntry() {
+        when(statsClient.queryStats(any(), any(), any(), anyBoolean())).thenReturn(List.of());
+
+        cache.getViews(Map.of("/events/1", UNPUBLISHED));
+        cache.getViews(Map.of("/events/1", FIRST_PUBLISHED));
+        cache.getViews(Map.of("/events/1", FIRST_PUBLISHED));
+
+        verify(statsClient).queryStats(eq(UNPUBLISHED), any(), any(), anyBoolean());
+        verify(statsClient).queryStats(eq(FIRST_PUBLISHED), any(), any(), anyBoolean());
+        assertEquals(1, requests("hit"));
+        assertEquals(2, requests("miss"));
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("ewm.views.cache.requests").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,61 @@
+-- Набор данных, на котором планировщик выбирает те же планы, что и на рабочей БД:
+-- таблицы достаточно велики, чтобы полный просмотр обходился дороже индекса
+TRUNCATE comments, compilation_events, compilations, requests, event_views, events, categories, users
+    RESTART IDENTITY CASCADE;
+
+INSERT INTO users (email, name)
+SELECT 'user' || i || '@mail.ru', 'user ' || i
+FROM generate_series(1, 10000) i;
+
+INSERT INTO categories (name)
+SELECT 'category ' || i
+FROM generate_series(1, 10000) i;
+
+INSERT INTO events (annotation, category_id, created_on, description, event_date, initiator_id, lat, lon, paid,
+                    participant_limit, published_on, request_moderation, state, title, confirmed_requests)
+SELECT 'annotation ' || md5(i::text),
+       1 + i % 10000,
+       now() - interval '400 days',
+       'description ' || md5((i * 31)::text),
+       date_trunc('second', now()) + (i % 730 - 365) * interval '1 day' + (i % 1440) * interval '1 minute',
+       1 + i % 10000,
+       55.75,
+       37.62,
+       i % 2 = 0,
+       (i % 5) * 10,
+       now() - interval '300 days',
+       i % 3 <> 0,
+       CASE WHEN i % 10 = 0 THEN 'PENDING' WHEN i % 10 = 1 THEN 'CANCELED' ELSE 'PUBLISHED' END,
+       'event ' || i,
+       i % 7
+FROM generate_series(1, 30000) i;
+
+INSERT INTO event_views (event_id, views)
+SELECT id, (id * 7919) % 30000
+FROM events
+WHERE state = 'PUBLISHED' AND id % 5 <> 0;
+
+INSERT INTO requests (created, event_id, requester_id, status)
+SELECT now() - interval '200 days',
+       1 + i % 30000,
+       1 + (i * 7) % 10000,
+       CASE WHEN i % 4 = 0 THEN 'PENDING' WHEN i % 4 = 1 THEN 'REJECTED' ELSE 'CONFIRMED' END
+FROM generate_series(1, 90000) i;
+
+INSERT INTO compilations (pinned, title)
+SELECT i % 10 = 0, 'compilation ' || i
+FROM generate_series(1, 3000) i;
+
+INSERT INTO compilation_events (compilation_id, event_id)
+SELECT c, 1 + (c * 13 + j * 997) % 30000
+FROM generate_series(1, 3000) c, generate_series(1, 5) j;
+
+INSERT INTO comments (text, created_on, author_id, event_id, state)
+SELECT 'comment ' || i,
+       now() - interval '100 days',
+       1 + (i * 3) % 10000,
+       1 + i % 30000,
+       CASE WHEN i % 5 = 0 THEN 'CANCELED' ELSE 'PUBLISHED' END
+FROM generate_series(1, 60000) i;
+
+ANALYZE;
@@ -0,0 +1,209 @@
+package ru.practicum.exp.stat.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import ru.practicum.exp.stat.dto.HitBatchResultDto;
+import ru.practicum.exp.stat.dto.HitDto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Класс HitSender для асинхронной отправки hit'ов на сервер статистики.
+ * Hit'ы складываются в ограниченную очередь и отправляются пачками на /hit/batch
+ * при накоплении batch-size или по истечении flush-interval. Вызывающий поток не ждет ответа сервера.
+ * Если задано хранилище на диске, пачки, не отправленные из-за недоступности сервера, сохраняются в него
+ * и отправляются повторно вслед за очередными пачками.
+ */
+public class HitSender {
+    private static final Logger log = Loggers.getLogger(HitSender.class);
+    private static final Duration SEND_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * Поведение при заполненной очереди
+     */
+    public enum OverflowPolicy {
+        DROP_NEWEST, DROP_OLDEST
+    }
+
+    private final WebClient client;
+    private final BlockingQueue<HitDto> queue;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final MeterRegistry meterRegistry;
+    private final HitSpool spool;
+    private final Sinks.Many<Long> wakeups = Sinks.many().multicast().directBestEffort();
+    private final Counter sentCounter;
+    private final Counter overflowCounter;
+    private final Counter errorCounter;
+    private final Counter rejectedCounter;
+    private final Timer sendTimer;
+    private final Disposable pipeline;
+
+    HitSender(WebClient client, int capacity, int batchSize, Duration flushInterval, OverflowPolicy overflowPolicy,
+              HitSpool spool, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.meterRegistry = meterRegistry;
+        this.spool = spool;
+        Gauge.builder("stats.client.hit.buffer.depth", queue, Collection::size)
+                .description("Количество hit'ов, ожидающих отправки")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("stats.client.hit.sent")
+                .description("Количество hit'ов, принятых сервером статистики")
+                .register(meterRegistry);
+        this.overflowCounter = dropped("overflow", meterRegistry);
+        this.errorCounter = dropped("error", meterRegistry);
+        this.rejectedCounter = dropped("rejected", meterRegistry);
+        this.sendTimer = Timer.builder("stats.client.hit.send")
+                .description("Время отправки одной пачки hit'ов")
+                .register(meterRegistry);
+        // Отправка пачек идет последовательно: пока пачка в пути, лишние сигналы сброса отбрасываются
+        this.pipeline = Flux.merge(Flux.interval(flushInterval), wakeups.asFlux())
+                .onBackpressureDrop()
+                .concatMap(tick -> sendPending().then(replaySpool()), 1)
+                .subscribe();
+    }
+
+    private static Counter dropped(String reason, MeterRegistry meterRegistry) {
+        return Counter.builder("stats.client.hit.dropped")
+                .tag("reason", reason)
+                .description("Количество hit'ов, не сохраненных сервером статистики")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Метод постановки hit'а в очередь на отправку, не блокирует вызывающий поток
+     *
+     * @param hitDto Объект запроса hit
+     */
+    public void send(HitDto hitDto) {
+        boolean accepted = queue.offer(hitDto);
+        while (!accepted && overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+            if (queue.poll() != null) {
+                overflowCounter.increment();
+            }
+            accepted = queue.offer(hitDto);
+        }
+        if (!accepted) {
+            overflowCounter.increment();
+            return;
+        }
+        if (queue.size() >= batchSize) {
+            wakeups.tryEmitNext(0L);
+        }
+    }
+
+    /**
+     * Метод остановки отправки, накопленные hit'ы отправляются перед завершением
+     */
+    public void close() {
+        pipeline.dispose();
+        sendPending().block(SHUTDOWN_TIMEOUT);
+    }
+
+    /**
+     * Метод отправки всех накопленных hit'ов пачками по batch-size
+     */
+    private Mono<Void> sendPending() {
+        return Flux.<List<HitDto>>generate(sink -> {
+                    List<HitDto> batch = new ArrayList<>(batchSize);
+                    queue.drainTo(batch, batchSize);
+                    if (batch.isEmpty()) {
+                        sink.complete();
+                    } else {
+                        sink.next(batch);
+                    }
+                })
+                .concatMap(this::sendBatch)
+                .then();
+    }
+
+    private Mono<Void> sendBatch(List<HitDto> batch) {
+        return post(batch)
+                .onErrorResume(e -> {
+                    if (spool != null && isRetryable(e)) {
+                        spool.append(batch);
+                        log.warn("Сервер статистики недоступен, {} hit'ов сохранено на диск: {}", batch.size(), e.getMessage());
+                    } else {
+                        errorCounter.increment(batch.size());
+                        log.warn("Ошибка при отправке пачки hit'ов ({} шт.): {}", batch.size(), e.getMessage());
+                    }
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Метод повторной отправки hit'ов из хранилища на диске. Позиция чтения сдвигается после ответа сервера,
+     * при недоступности сервера отправка прекращается до следующего сброса
+     */
+    private Mono<Void> replaySpool() {
+        if (spool == null) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> {
+            List<HitDto> batch = spool.read(batchSize);
+            if (batch.isEmpty()) {
+                return Mono.empty();
+            }
+            return post(batch)
+                    .doOnNext(result -> spool.commit())
+                    .flatMap(result -> replaySpool())
+                    .onErrorResume(e -> {
+                        if (!isRetryable(e)) {
+                            // Пачку, отклоненную сервером целиком, повторять бесполезно
+                            spool.commit();
+                            errorCounter.increment(batch.size());
+                        }
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    private Mono<HitBatchResultDto> post(List<HitDto> batch) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return client.post()
+                    .uri("/hit/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(batch)
+                    .retrieve()
+                    .bodyToMono(HitBatchResultDto.class)
+                    .timeout(SEND_TIMEOUT)
+                    .doOnNext(result -> {
+                        sentCounter.increment(result.getAccepted());
+                        if (result.getRejected() != null && !result.getRejected().isEmpty()) {
+                            rejectedCounter.increment(result.getRejected().size());
+                        }
+                    })
+                    .doFinally(signal -> sample.stop(sendTimer));
+        });
+    }
+
+    /**
+     * Метод проверки, имеет ли смысл повторная отправка: ответы 4xx означают ошибку в самом запросе
+     */
+    private static boolean isRetryable(Throwable e) {
+        return !(e instanceof WebClientResponseException
+                && ((WebClientResponseException) e).getStatusCode().is4xxClientError());
+    }
+}
@@ -0,0 +1,266 @@
+package ru.practicum.exp.stat.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import ru.practicum.exp.stat.dto.HitDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Класс HitSpool для хранения на диске hit'ов, которые не удалось отправить на сервер статистики.
+ * Hit'ы дописываются в отображенные в память файлы-сегменты фиксированного размера, позиция чтения
+ * хранится в отдельном файле и сдвигается только после успешной повторной отправки (доставка не менее одного раза).
+ * Прочитанные сегменты удаляются, при достижении max-bytes новые hit'ы отбрасываются.
+ */
+public class HitSpool {
+    private static final String SEGMENT_PREFIX = "hits-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String OFFSET_FILE = "offset";
+    private static final int LENGTH_BYTES = Integer.BYTES;
+    private static final int NULL_STRING = 0xFFFF;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long maxSegments;
+    private final MappedByteBuffer offset;
+    private final Counter spooledCounter;
+    private final Counter droppedCounter;
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private int writePosition;
+    private long readSegment;
+    private MappedByteBuffer readBuffer;
+    private int readPosition;
+    private int pendingPosition;
+
+    /**
+     * Конструктор хранилища, незавершенные с прошлого запуска сегменты подхватываются
+     *
+     * @param directory     Каталог для файлов хранилища
+     * @param maxBytes      Максимальный суммарный размер сегментов
+     * @param segmentBytes  Размер одного сегмента
+     * @param meterRegistry Реестр метрик
+     */
+    public HitSpool(Path directory, long maxBytes, int segmentBytes, MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(1, maxBytes / segmentBytes);
+        try {
+            Files.createDirectories(directory);
+            this.offset = map(directory.resolve(OFFSET_FILE), Long.BYTES + Integer.BYTES);
+            List<Long> segments = findSegments();
+            readSegment = offset.getLong(0);
+            readPosition = offset.getInt(Long.BYTES);
+            // Позиция относится к сегменту, которого больше нет: чтение начинается с начала самого старого
+            // сегмента, а если сегментов нет - с начала нового сегмента с номером из файла позиции
+            if (!segments.contains(readSegment)) {
+                readSegment = segments.isEmpty() ? readSegment : segments.get(0);
+                readPosition = 0;
+            }
+            writeSegment = segments.isEmpty() ? readSegment : segments.get(segments.size() - 1);
+            writeBuffer = map(segmentPath(writeSegment), segmentBytes);
+            writePosition = findEnd(writeBuffer);
+            readBuffer = map(segmentPath(readSegment), segmentBytes);
+            pendingPosition = readPosition;
+            saveOffset();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть хранилище hit'ов " + directory, e);
+        }
+        this.spooledCounter = Counter.builder("stats.client.hit.spooled")
+                .description("Количество hit'ов, записанных на диск для повторной отправки")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("stats.client.hit.dropped")
+                .tag("reason", "spool-full")
+                .description("Количество hit'ов, не сохраненных сервером статистики")
+                .register(meterRegistry);
+        Gauge.builder("stats.client.hit.spool.segments", this, HitSpool::segmentCount)
+                .description("Количество сегментов хранилища hit'ов на диске")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Метод записи hit'ов в хранилище
+     *
+     * @param hits Список hit'ов
+     */
+    public synchronized void append(List<HitDto> hits) {
+        for (HitDto hit : hits) {
+            byte[] record = encode(hit);
+            if (record == null || LENGTH_BYTES + record.length > segmentBytes) {
+                droppedCounter.increment();
+                continue;
+            }
+            if (writePosition + LENGTH_BYTES + record.length > segmentBytes) {
+                if (segmentCount() >= maxSegments) {
+                    droppedCounter.increment();
+                    continue;
+                }
+                writeBuffer.force();
+                writeSegment++;
+                writeBuffer = map(segmentPath(writeSegment), segmentBytes);
+                writePosition = 0;
+            }
+            // Длина записывается последней: при сбое во время записи неполная запись не будет прочитана
+            ByteBuffer target = writeBuffer.duplicate();
+            target.position(writePosition + LENGTH_BYTES);
+            target.put(record);
+            writeBuffer.putInt(writePosition, record.length);
+            writePosition += LENGTH_BYTES + record.length;
+            spooledCounter.increment();
+        }
+        writeBuffer.force();
+    }
+
+    /**
+     * Метод чтения очередной пачки hit'ов без сдвига позиции чтения
+     *
+     * @param max Максимальное количество hit'ов
+     * @return Список hit'ов, пустой если хранилище пусто
+     */
+    public synchronized List<HitDto> read(int max) {
+        List<HitDto> hits = new ArrayList<>();
+        pendingPosition = readPosition;
+        while (hits.size() < max) {
+            int length = pendingPosition + LENGTH_BYTES <= segmentBytes ? readBuffer.getInt(pendingPosition) : 0;
+            if (length <= 0 || pendingPosition + LENGTH_BYTES + length > segmentBytes) {
+                if (readSegment < writeSegment && hits.isEmpty()) {
+                    nextReadSegment();
+                    continue;
+                }
+                break;
+            }
+            hits.add(decode(readBuffer, pendingPosition + LENGTH_BYTES));
+            pendingPosition += LENGTH_BYTES + length;
+        }
+        return hits;
+    }
+
+    /**
+     * Метод подтверждения отправки пачки, полученной последним вызовом read
+     */
+    public synchronized void commit() {
+        readPosition = pendingPosition;
+        saveOffset();
+    }
+
+    private long segmentCount() {
+        return writeSegment - readSegment + 1;
+    }
+
+    private void nextReadSegment() {
+        Path finished = segmentPath(readSegment);
+        readSegment++;
+        readPosition = 0;
+        pendingPosition = 0;
+        readBuffer = readSegment == writeSegment ? writeBuffer : map(segmentPath(readSegment), segmentBytes);
+        saveOffset();
+        try {
+            Files.deleteIfExists(finished);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось удалить сегмент " + finished, e);
+        }
+    }
+
+    private void saveOffset() {
+        offset.putLong(0, readSegment);
+        offset.putInt(Long.BYTES, readPosition);
+        offset.force();
+    }
+
+    private List<Long> findSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(SEGMENT_PREFIX + segment + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Метод поиска конца записанных данных сегмента
+     */
+    private int findEnd(MappedByteBuffer buffer) {
+        int position = 0;
+        while (position + LENGTH_BYTES <= segmentBytes) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + LENGTH_BYTES + length > segmentBytes) {
+                break;
+            }
+            position += LENGTH_BYTES + length;
+        }
+        return position;
+    }
+
+    private static MappedByteBuffer map(Path path, int size) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось отобразить в память файл " + path, e);
+        }
+    }
+
+    /**
+     * Запись hit'а: четыре строки (app, uri, ip, timestamp), каждая с длиной в два байта
+     */
+    private static byte[] encode(HitDto hit) {
+        String[] values = {hit.getApp(), hit.getUri(), hit.getIp(), hit.getTimestamp()};
+        byte[][] bytes = new byte[values.length][];
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = values[i] == null ? null : values[i].getBytes(StandardCharsets.UTF_8);
+            if (bytes[i] != null && bytes[i].length >= NULL_STRING) {
+                return null;
+            }
+            size += Short.BYTES + (bytes[i] == null ? 0 : bytes[i].length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] value : bytes) {
+            buffer.putShort((short) (value == null ? NULL_STRING : value.length));
+            if (value != null) {
+                buffer.put(value);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static HitDto decode(MappedByteBuffer buffer, int position) {
+        ByteBuffer source = buffer.duplicate();
+        source.position(position);
+        return HitDto.builder()
+                .app(readString(source))
+                .uri(readString(source))
+                .ip(readString(source))
+                .timestamp(readString(source))
+                .build();
+    }
+
+    private static String readString(ByteBuffer source) {
+        int length = Short.toUnsignedInt(source.getShort());
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        source.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -1,12 +1,16 @@
 package ru.practicum.exp.stat.client;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.practicum.exp.stat.dto.HitDto;
+import ru.practicum.exp.stat.dto.StatsQueryDto;
 import ru.practicum.exp.stat.dto.ViewStatsDto;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -16,11 +20,31 @@ import java.util.List;
  */
 public class StatsClient {
     private final WebClient client;
+    private final HitSender hitSender;
     private static final String DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATE_TIME_FORMAT);
 
     public StatsClient(String serverUrl) {
         this.client = WebClient.create(serverUrl);
+        this.hitSender = null;
+    }
+
+    /**
+     * Конструктор клиента с асинхронной отправкой hit'ов
+     *
+     * @param serverUrl      Адрес сервера статистики
+     * @param bufferCapacity Максимальное количество hit'ов, ожидающих отправки
+     * @param batchSize      Максимальное количество hit'ов в одном запросе
+     * @param flushInterval  Максимальное время ожидания отправки hit'а
+     * @param overflowPolicy Поведение при заполненной очереди
+     * @param hitSpool       Хранилище на диске для hit'ов, не отправленных из-за недоступности сервера, или null
+     * @param meterRegistry  Реестр метрик
+     */
+    public StatsClient(String serverUrl, int bufferCapacity, int batchSize, Duration flushInterval,
+                       HitSender.OverflowPolicy overflowPolicy, HitSpool hitSpool, MeterRegistry meterRegistry) {
+        this.client = WebClient.create(serverUrl);
+        this.hitSender = new HitSender(client, bufferCapacity, batchSize, flushInterval, overflowPolicy, hitSpool,
+                meterRegistry);
     }
 
     /**
@@ -43,6 +67,29 @@ public class StatsClient {
                 .block();
     }
 
+    /**
+     * Метод асинхронной отправки hit'а: hit ставится в очередь и отправляется пачкой, ответ сервера не ожидается.
+     * Если асинхронная отправка не настроена, hit отправляется синхронно
+     *
+     * @param hitDto Объект запроса hit
+     */
+    public void sendHit(HitDto hitDto) {
+        if (hitSender == null) {
+            hitRequest(hitDto);
+            return;
+        }
+        hitSender.send(hitDto);
+    }
+
+    /**
+     * Метод остановки клиента, накопленные hit'ы отправляются перед завершением
+     */
+    public void close() {
+        if (hitSender != null) {
+            hitSender.close();
+        }
+    }
+
     /**
      * Метод получения статистики по посещениям
      *
@@ -53,14 +100,122 @@ public class StatsClient {
      * @return Сформированный список статистики по посещениям
      */
     public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
+        return getStats(start, end, uris, unique, false);
+    }
+
+    /**
+     * Метод получения статистики по посещениям с возможностью приближенного подсчета уникальных посещений
+     *
+     * @param start       Дата и время начала диапазона за который нужно выгрузить статистику
+     * @param end         Дата и время конца диапазона за который нужно выгрузить статистику
+     * @param uris        Список uri для которых нужно выгрузить статистику
+     * @param unique      Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @param approximate Допускается ли приближенный подсчет уникальных посещений (ошибка ~1.6%)
+     * @return Сформированный список статистики по посещениям
+     */
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                                       boolean approximate) {
         return client.get()
                 .uri(uriBuilder -> uriBuilder.path("/stats")
                         .queryParam("start", start.format(formatter))
                         .queryParam("end", end.format(formatter))
                         .queryParam("uris", uris)
                         .queryParam("unique", unique)
+                        .queryParam("approximate", approximate)
+                        .build())
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
+                        clientResponse -> {
+                            // Обработка ошибки
+                            return Mono.error(new RuntimeException("Ошибка при получении статистики: " + clientResponse.statusCode()));
+                        })
+                .bodyToFlux(ViewStatsDto.class)
+                .collectList()
+                .block();
+    }
+
+    /**
+     * Метод потоковой выгрузки статистики по посещениям запросом POST /stats/query в формате application/x-ndjson.
+     * Список uri передается в теле запроса, поэтому его длина не ограничена длиной строки запроса.
+     * Строки разбираются по мере получения, весь результат в памяти не собирается.
+     * Для блокирующего обхода можно использовать {@code streamStats(...).toIterable()}
+     *
+     * @param start       Дата и время начала диапазона за который нужно выгрузить статистику
+     * @param end         Дата и время конца диапазона за который нужно выгрузить статистику
+     * @param uris        Список uri для которых нужно выгрузить статистику, null - все uri,
+     *                    пустой список - пустой результат
+     * @param unique      Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @param approximate Допускается ли приближенный подсчет уникальных посещений (ошибка ~1.6%)
+     * @return Поток статистики по посещениям в порядке убывания количества посещений
+     */
+    public Flux<ViewStatsDto> streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                          boolean approximate) {
+        return client.post()
+                .uri("/stats/query")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(StatsQueryDto.builder()
+                        .start(start.format(formatter))
+                        .end(end.format(formatter))
+                        .uris(uris)
+                        .unique(unique)
+                        .approximate(approximate)
                         .build())
                 .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
+                        clientResponse -> {
+                            // Обработка ошибки
+                            return Mono.error(new RuntimeException("Ошибка при получении статистики: " + clientResponse.statusCode()));
+                        })
+                .bodyToFlux(ViewStatsDto.class);
+    }
+
+    /**
+     * Метод получения статистики по посещениям запросом POST /stats/query, список uri передается в теле запроса
+     *
+     * @param start  Дата и время начала диапазона за который нужно выгрузить статистику
+     * @param end    Дата и время конца диапазона за который нужно выгрузить статистику
+     * @param uris   Список uri для которых нужно выгрузить статистику, пустой список - пустой результат
+     * @param unique Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @return Сформированный список статистики по посещениям
+     */
+    public List<ViewStatsDto> queryStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return query(StatsQueryDto.builder()
+                .start(start.format(formatter))
+                .end(end.format(formatter))
+                .uris(uris)
+                .unique(unique)
+                .build());
+    }
+
+    /**
+     * Метод получения статистики по посещениям запросом POST /stats/query, uri задаются префиксом
+     * и списком идентификаторов, что короче полного списка uri
+     *
+     * @param start     Дата и время начала диапазона за который нужно выгрузить статистику
+     * @param end       Дата и время конца диапазона за который нужно выгрузить статистику
+     * @param uriPrefix Общий префикс uri, например "/events/"
+     * @param ids       Список идентификаторов, uri формируется как uriPrefix + id
+     * @param unique    Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @return Сформированный список статистики по посещениям
+     */
+    public List<ViewStatsDto> queryStatsByIds(LocalDateTime start, LocalDateTime end, String uriPrefix, List<Long> ids,
+                                              boolean unique) {
+        return query(StatsQueryDto.builder()
+                .start(start.format(formatter))
+                .end(end.format(formatter))
+                .uriPrefix(uriPrefix)
+                .ids(ids)
+                .unique(unique)
+                .build());
+    }
+
+    private List<ViewStatsDto> query(StatsQueryDto query) {
+        return client.post()
+                .uri("/stats/query")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(query)
+                .retrieve()
                 .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
                         clientResponse -> {
                             // Обработка ошибки
@@ -70,4 +225,4 @@ public class StatsClient {
                 .collectList()
                 .block();
     }
-}
\ No newline at end of file
+}
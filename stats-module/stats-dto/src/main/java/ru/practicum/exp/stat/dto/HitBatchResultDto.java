@@ -0,0 +1,24 @@
+package ru.practicum.exp.stat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Модель объекта результата пакетной записи hit'ов
+ *
+ * @param 'accepted' количество сохраненных hit'ов
+ * @param 'rejected' список отклоненных hit'ов с причиной отказа
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HitBatchResultDto {
+
+    private int accepted;
+    private List<HitRejectionDto> rejected;
+}
@@ -5,6 +5,7 @@ import lombok.Value;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
 
 /**
  * Модель объекта Hit Data Transfer Object
@@ -12,11 +13,16 @@ import javax.validation.constraints.Pattern;
 @Value
 @Builder
 public class HitDto {
+    // Размеры столбцов hit_apps.name и hit_uris.uri
+    public static final int MAX_APP_LENGTH = 255;
+    public static final int MAX_URI_LENGTH = 700;
 
     Long id;
     @NotBlank(message = "Поле \"app\" должно быть заполнено")
+    @Size(max = MAX_APP_LENGTH, message = "Длина поля \"app\" не должна превышать " + MAX_APP_LENGTH)
     String app;
     @NotBlank(message = "Поле \"uri\" должно быть заполнено")
+    @Size(max = MAX_URI_LENGTH, message = "Длина поля \"uri\" не должна превышать " + MAX_URI_LENGTH)
     String uri;
     @NotBlank(message = "Поле \"ip\" должно быть заполнено")
     String ip;
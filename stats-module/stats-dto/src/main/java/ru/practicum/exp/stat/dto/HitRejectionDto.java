@@ -0,0 +1,20 @@
+package ru.practicum.exp.stat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Модель объекта отклоненного hit'а в пакетной записи
+ *
+ * @param 'index' позиция hit'а во входном массиве
+ * @param 'reason' причина отказа
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HitRejectionDto {
+
+    private int index;
+    private String reason;
+}
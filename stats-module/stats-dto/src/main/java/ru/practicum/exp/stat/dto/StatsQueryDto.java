@@ -0,0 +1,36 @@
+package ru.practicum.exp.stat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Модель объекта запроса статистики по посещениям в теле запроса.
+ * Список uri задается явно или идентификаторами с общим префиксом uri (например, "/events/" и id событий),
+ * оба способа можно совмещать.
+ *
+ * @param 'start' дата и время начала диапазона в формате "yyyy-MM-dd HH:mm:ss"
+ * @param 'end' дата и время конца диапазона в формате "yyyy-MM-dd HH:mm:ss"
+ * @param 'uris' список uri
+ * @param 'uriPrefix' префикс uri для списка идентификаторов
+ * @param 'ids' список идентификаторов, uri формируется как uriPrefix + id
+ * @param 'unique' учитывать только уникальные посещения
+ * @param 'approximate' допускается приближенный подсчет уникальных посещений
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsQueryDto {
+
+    private String start;
+    private String end;
+    private List<String> uris;
+    private String uriPrefix;
+    private List<Long> ids;
+    private boolean unique;
+    private boolean approximate;
+}
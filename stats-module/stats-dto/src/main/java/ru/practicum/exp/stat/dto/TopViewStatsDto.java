@@ -0,0 +1,25 @@
+package ru.practicum.exp.stat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Модель объекта приближенной статистики самых посещаемых uri.
+ * Истинное количество обращений лежит в диапазоне [hits - error, hits].
+ *
+ * @param 'app' название приложения
+ * @param 'uri' URI ресурса
+ * @param 'hits' оценка количества обращений сверху
+ * @param 'error' максимальное завышение оценки, 0 для точного значения
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopViewStatsDto {
+
+    private String app;
+    private String uri;
+    private Long hits;
+    private Long error;
+}
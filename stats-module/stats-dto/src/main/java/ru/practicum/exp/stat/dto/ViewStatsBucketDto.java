@@ -0,0 +1,24 @@
+package ru.practicum.exp.stat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Модель объекта количества обращений к uri за один интервал временного ряда.
+ *
+ * @param 'app' название приложения
+ * @param 'uri' URI ресурса
+ * @param 'bucketStart' начало интервала в формате "yyyy-MM-dd HH:mm:ss"
+ * @param 'hits' количество обращений за интервал
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ViewStatsBucketDto {
+
+    private String app;
+    private String uri;
+    private String bucketStart;
+    private Long hits;
+}
@@ -9,6 +9,7 @@ import lombok.*;
  * @param 'hits' количество обращений
  */
 @Data
+@NoArgsConstructor
 @AllArgsConstructor
 public class ViewStatsDto {
 
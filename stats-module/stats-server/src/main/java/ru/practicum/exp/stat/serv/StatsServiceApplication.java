@@ -2,8 +2,10 @@ package ru.practicum.exp.stat.serv;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class StatsServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,33 @@
+package ru.practicum.exp.stat.serv.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Класс конфигурации Spring MVC
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /**
+     * Разрешает запись JSON-ответов с типом application/x-ndjson: ошибка потоковой выгрузки
+     * возвращается одним JSON-объектом, который является корректным ответом из одной строки
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof MappingJackson2HttpMessageConverter) {
+                MappingJackson2HttpMessageConverter jackson = (MappingJackson2HttpMessageConverter) converter;
+                List<MediaType> mediaTypes = new ArrayList<>(jackson.getSupportedMediaTypes());
+                mediaTypes.add(MediaType.APPLICATION_NDJSON);
+                jackson.setSupportedMediaTypes(mediaTypes);
+            }
+        }
+    }
+}
@@ -4,9 +4,12 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.exp.stat.dto.HitBatchResultDto;
 import ru.practicum.exp.stat.dto.HitDto;
 import ru.practicum.exp.stat.serv.services.HitService;
 
+import java.util.List;
+
 /**
  * Класс HitController по энпоинту hit
  */
@@ -27,4 +30,16 @@ public class HitController {
     public void create(@Validated @RequestBody HitDto hitDto) {
         hitService.create(hitDto);
     }
-}
\ No newline at end of file
+
+    /**
+     * Метод (энпоинт) пакетного создания запросов Hit
+     *
+     * @param hitDtos Список объектов запроса hit
+     * @return Количество сохраненных hit'ов и список отклоненных с причиной
+     */
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("/batch")
+    public HitBatchResultDto createBatch(@RequestBody List<HitDto> hitDtos) {
+        return hitService.createBatch(hitDtos);
+    }
+}
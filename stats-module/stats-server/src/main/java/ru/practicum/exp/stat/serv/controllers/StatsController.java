@@ -1,14 +1,30 @@
 package ru.practicum.exp.stat.serv.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.exp.stat.dto.StatsQueryDto;
+import ru.practicum.exp.stat.dto.TopViewStatsDto;
+import ru.practicum.exp.stat.dto.ViewStatsBucketDto;
 import ru.practicum.exp.stat.dto.ViewStatsDto;
 import ru.practicum.exp.stat.serv.services.StatService;
+import ru.practicum.exp.stat.serv.util.DateFormatter;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Класс StatsController по энпоинту stats
@@ -19,6 +35,7 @@ import java.util.List;
 public class StatsController {
 
     private final StatService statService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Метод (эндпоинт) получения статистики по посещениям
@@ -27,13 +44,134 @@ public class StatsController {
      * @param end    Дата и время конца диапазона за который нужно выгрузить статистику
      * @param uris   Список uri для которых нужно выгрузить статистику
      * @param unique Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @param approximate Допускается ли приближенный подсчет уникальных посещений по HyperLogLog-оценкам
+     *                    (стандартная ошибка ~1.6%, менее 10 000 уникальных ip считаются практически точно)
      * @return Сформированный список статистики по посещениям
      */
     @GetMapping
     public List<ViewStatsDto> get(@RequestParam String start,
                                   @RequestParam String end,
                                   @RequestParam(required = false) List<String> uris,
-                                  @RequestParam(defaultValue = "false") Boolean unique) {
-        return statService.get(start, end, uris, unique);
+                                  @RequestParam(defaultValue = "false") Boolean unique,
+                                  @RequestParam(defaultValue = "false") Boolean approximate) {
+        return statService.get(start, end, uris, unique, approximate);
+    }
+
+    /**
+     * Метод (эндпоинт) потоковой выгрузки статистики по посещениям при заголовке Accept: application/x-ndjson.
+     * Каждая строка ответа - отдельный JSON-объект, строки передаются по мере чтения из БД
+     * и не накапливаются в памяти ни на сервере, ни на клиенте
+     *
+     * @param start  Дата и время начала диапазона за который нужно выгрузить статистику
+     * @param end    Дата и время конца диапазона за который нужно выгрузить статистику
+     * @param uris   Список uri для которых нужно выгрузить статистику
+     * @param unique Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @param approximate Допускается ли приближенный подсчет уникальных посещений
+     * @return Ответ с телом, записываемым построчно
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam String start,
+                                                        @RequestParam String end,
+                                                        @RequestParam(required = false) List<String> uris,
+                                                        @RequestParam(defaultValue = "false") Boolean unique,
+                                                        @RequestParam(defaultValue = "false") Boolean approximate) {
+        // Даты проверяются до начала записи, чтобы ошибка вернулась обычным ответом 400
+        DateFormatter.checkRange(DateFormatter.formatDate(start), DateFormatter.formatDate(end));
+        return writeLines(consumer -> statService.stream(start, end, uris, unique, approximate, consumer));
+    }
+
+    /**
+     * Метод (эндпоинт) получения самых посещаемых uri за период.
+     * Период, начинающийся в пределах stats.top.retention-hours, считается по часовым Space-Saving-сводкам
+     * без группировки таблицы hits, более ранние периоды - точно по таблице hits
+     *
+     * @param start Дата и время начала диапазона
+     * @param end   Дата и время конца диапазона
+     * @param n     Количество uri
+     * @return Список статистики в порядке убывания оценки, истинное значение лежит в [hits - error, hits]
+     */
+    @GetMapping("/top")
+    public List<TopViewStatsDto> getTop(@RequestParam String start,
+                                        @RequestParam String end,
+                                        @RequestParam(defaultValue = "10") Integer n) {
+        return statService.getTop(start, end, n);
+    }
+
+    /**
+     * Метод (эндпоинт) получения временного ряда количества посещений по каждому uri одним запросом.
+     * Без учета уникальности ip целые интервалы берутся из таблиц агрегатов, иначе ряд считается
+     * одним сгруппированным проходом по таблице hits
+     *
+     * @param start       Дата и время начала диапазона
+     * @param end         Дата и время конца диапазона
+     * @param uris        Список uri
+     * @param granularity Гранулярность интервалов: MINUTE, HOUR или DAY
+     * @param unique      Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @return Список количества посещений по приложению, uri и началу интервала
+     */
+    @GetMapping("/timeseries")
+    public List<ViewStatsBucketDto> getTimeSeries(@RequestParam String start,
+                                                  @RequestParam String end,
+                                                  @RequestParam List<String> uris,
+                                                  @RequestParam(defaultValue = "HOUR") String granularity,
+                                                  @RequestParam(defaultValue = "false") Boolean unique) {
+        return statService.getTimeSeries(start, end, uris, granularity, unique);
+    }
+
+    /**
+     * Метод (эндпоинт) получения статистики по посещениям с параметрами в теле запроса.
+     * Длинные списки uri не упираются в ограничения длины строки запроса
+     *
+     * @param query Параметры запроса, uri задаются списком и/или префиксом с идентификаторами
+     * @return Сформированный список статистики по посещениям
+     */
+    @PostMapping("/query")
+    public List<ViewStatsDto> query(@RequestBody StatsQueryDto query) {
+        return statService.query(query);
+    }
+
+    /**
+     * Метод (эндпоинт) потоковой выгрузки статистики по посещениям с параметрами в теле запроса
+     * при заголовке Accept: application/x-ndjson. Список uri любой длины передается в теле,
+     * строки ответа передаются по мере чтения из БД, как в потоковой выгрузке GET /stats
+     *
+     * @param query Параметры запроса, без uris и ids выгружается статистика по всем uri,
+     *              пустой список uri дает пустой ответ
+     * @return Ответ с телом, записываемым построчно
+     */
+    @PostMapping(path = "/query", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamQuery(@RequestBody StatsQueryDto query) {
+        // Параметры проверяются до начала записи, чтобы ошибка вернулась обычным ответом 400
+        DateFormatter.checkRange(DateFormatter.formatDate(query.getStart()), DateFormatter.formatDate(query.getEnd()));
+        List<String> uris = statService.resolveUris(query);
+        if (uris != null && uris.isEmpty()) {
+            return writeLines(consumer -> {
+            });
+        }
+        return writeLines(consumer -> statService.stream(query.getStart(), query.getEnd(), uris, query.isUnique(),
+                query.isApproximate(), consumer));
+    }
+
+    /**
+     * Метод построчной записи статистики: каждая строка - отдельный JSON-объект
+     *
+     * @param source Источник строк статистики, передающий их получателю по мере чтения
+     * @return Ответ с телом, записываемым построчно
+     */
+    private ResponseEntity<StreamingResponseBody> writeLines(Consumer<Consumer<ViewStatsDto>> source) {
+        ObjectWriter writer = objectMapper.writerFor(ViewStatsDto.class);
+        // Тип содержимого задается явно: для StreamingResponseBody он не берется из produces
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            source.accept(dto -> {
+                try {
+                    out.write(writer.writeValueAsBytes(dto));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        });
     }
 }
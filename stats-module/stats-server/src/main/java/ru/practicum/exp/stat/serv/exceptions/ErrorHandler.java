@@ -26,6 +26,59 @@ public class ErrorHandler {
         log.warn("400 {}", e.getMessage());
         return Map.of("error", e.getMessage());
     }
+
+    /**
+     * Обработчик исключений ValidationIpException
+     *
+     * @param e Исключение, которое нужно обработать
+     * @return Сообщение об ошибке в формате Map
+     */
+    @ExceptionHandler(ValidationIpException.class)
+    @ResponseStatus(code = HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleValidationIpException(final ValidationIpException e) {
+        log.warn("400 {}", e.getMessage());
+        return Map.of("error", e.getMessage());
+    }
+
+    /**
+     * Обработчик исключений ValidationHitException
+     *
+     * @param e Исключение, которое нужно обработать
+     * @return Сообщение об ошибке в формате Map
+     */
+    @ExceptionHandler(ValidationHitException.class)
+    @ResponseStatus(code = HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleValidationHitException(final ValidationHitException e) {
+        log.warn("400 {}", e.getMessage());
+        return Map.of("error", e.getMessage());
+    }
+
+    /**
+     * Обработчик исключений ValidationQueryException
+     *
+     * @param e Исключение, которое нужно обработать
+     * @return Сообщение об ошибке в формате Map
+     */
+    @ExceptionHandler(ValidationQueryException.class)
+    @ResponseStatus(code = HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleValidationQueryException(final ValidationQueryException e) {
+        log.warn("400 {}", e.getMessage());
+        return Map.of("error", e.getMessage());
+    }
+
+    /**
+     * Обработчик исключений HitBufferOverflowException
+     *
+     * @param e Исключение, которое нужно обработать
+     * @return Сообщение об ошибке в формате Map
+     */
+    @ExceptionHandler(HitBufferOverflowException.class)
+    @ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, String> handleHitBufferOverflowException(final HitBufferOverflowException e) {
+        log.warn("503 {}", e.getMessage());
+        return Map.of("error", e.getMessage());
+    }
+
     /**
      * Обработчик всех остальных исключений
      *
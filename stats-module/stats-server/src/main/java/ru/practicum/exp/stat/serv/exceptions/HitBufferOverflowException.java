@@ -0,0 +1,10 @@
+package ru.practicum.exp.stat.serv.exceptions;
+
+/**
+ * Класс собственного исключения при переполнении буфера записи hit'ов
+ */
+public class HitBufferOverflowException extends RuntimeException {
+    public HitBufferOverflowException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.exp.stat.serv.exceptions;
+
+/**
+ * Класс собственного исключения при некорректно заданном hit'е
+ */
+public class ValidationHitException extends RuntimeException {
+    public ValidationHitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.exp.stat.serv.exceptions;
+
+/**
+ * Класс собственного исключения при работе с ip адресом
+ */
+public class ValidationIpException extends RuntimeException {
+    public ValidationIpException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.exp.stat.serv.exceptions;
+
+/**
+ * Класс собственного исключения при некорректно заданном запросе статистики
+ */
+public class ValidationQueryException extends RuntimeException {
+    public ValidationQueryException(String message) {
+        super(message);
+    }
+}
@@ -4,6 +4,7 @@ import lombok.experimental.UtilityClass;
 import ru.practicum.exp.stat.dto.HitDto;
 import ru.practicum.exp.stat.serv.models.Hit;
 import ru.practicum.exp.stat.serv.util.DateFormatter;
+import ru.practicum.exp.stat.serv.util.IpFormatter;
 
 /**
  * Класс HitMapper для преобразования HitDto в Hit
@@ -20,7 +21,7 @@ public class HitMapper {
      */
     public static Hit toHit(HitDto hitDto) {
         return Hit.builder()
-                .ip(hitDto.getIp())
+                .ip(IpFormatter.formatIp(hitDto.getIp()))
                 .app(hitDto.getApp())
                 .uri(hitDto.getUri())
                 .timestamp(DateFormatter.formatDate(hitDto.getTimestamp()))
@@ -0,0 +1,22 @@
+package ru.practicum.exp.stat.serv.models;
+
+import lombok.Value;
+
+import java.util.Comparator;
+
+/**
+ * Модель ключа статистики (приложение и uri ресурса)
+ */
+@Value
+public class AppUri implements Comparable<AppUri> {
+    private static final Comparator<AppUri> ORDER = Comparator.comparing(AppUri::getApp)
+            .thenComparing(AppUri::getUri);
+
+    String app;
+    String uri;
+
+    @Override
+    public int compareTo(AppUri other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -2,33 +2,26 @@ package ru.practicum.exp.stat.serv.models;
 
 import lombok.*;
 
-import javax.persistence.*;
 import java.time.LocalDateTime;
 
 /**
- * Модель объекта Hit
+ * Модель объекта Hit.
+ * В таблице hits app и uri хранятся идентификаторами словарей, ip - типом inet,
+ * поэтому запись и чтение выполняются через JDBC-репозитории, а не через JPA.
  */
 @Getter
 @Setter
-@Entity
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "hits")
 public class Hit {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "app")
     private String app;
 
-    @Column(name = "uri")
     private String uri;
 
-    @Column(name = "ip")
     private String ip;
 
-    @Column(name = "time_stamp")
     private LocalDateTime timestamp;
-}
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+package ru.practicum.exp.stat.serv.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Проекция количества посещений по идентификаторам приложения и uri
+ */
+@Getter
+@AllArgsConstructor
+public class HitCount {
+    private final int appId;
+
+    private final int uriId;
+
+    private final long hits;
+}
@@ -0,0 +1,57 @@
+package ru.practicum.exp.stat.serv.models.enums;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * ENUM гранулярности таблиц предагрегированных hit'ов (RollupGranularity)
+ */
+public enum RollupGranularity {
+    DAY("hits_rollup_day", ChronoUnit.DAYS),
+    HOUR("hits_rollup_hour", ChronoUnit.HOURS),
+    MINUTE("hits_rollup_minute", ChronoUnit.MINUTES);
+
+    private final String table;
+    private final ChronoUnit unit;
+
+    RollupGranularity(String table, ChronoUnit unit) {
+        this.table = table;
+        this.unit = unit;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Метод получения начала интервала, в который попадает момент времени
+     *
+     * @param time Дата и время
+     * @return Начало интервала
+     */
+    public LocalDateTime floor(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * Метод получения количества интервалов, пересекающихся с периодом
+     *
+     * @param from Начало периода (включительно)
+     * @param to   Конец периода (не включительно)
+     * @return Количество интервалов
+     */
+    public long countBuckets(LocalDateTime from, LocalDateTime to) {
+        return unit.between(floor(from), ceil(to));
+    }
+
+    /**
+     * Метод получения начала ближайшего интервала не раньше момента времени
+     *
+     * @param time Дата и время
+     * @return Начало интервала
+     */
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime floor = floor(time);
+        return floor.equals(time) ? floor : floor.plus(1, unit);
+    }
+}
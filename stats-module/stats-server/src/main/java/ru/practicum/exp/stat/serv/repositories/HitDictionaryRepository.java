@@ -0,0 +1,196 @@
+package ru.practicum.exp.stat.serv.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Класс HitDictionaryRepository для словарей app и uri.
+ * В таблице hits хранятся целочисленные идентификаторы, соответствие имен и идентификаторов кэшируется в памяти.
+ * Словари только пополняются, поэтому закэшированное значение не устаревает.
+ * Новые значения добавляются в транзакции записи hit'ов и попадают в кэш только после ее фиксации.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitDictionaryRepository {
+    private final Dictionary apps = new Dictionary("hit_apps", "name");
+    private final Dictionary uris = new Dictionary("hit_uris", "uri");
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Метод получения идентификаторов приложений, отсутствующие значения добавляются в словарь
+     *
+     * @param values Названия приложений
+     * @return Идентификаторы по названию приложения
+     */
+    public Map<String, Integer> getAppIds(Collection<String> values) {
+        return getOrCreateIds(apps, values);
+    }
+
+    /**
+     * Метод получения идентификаторов uri, отсутствующие значения добавляются в словарь
+     *
+     * @param values Список uri
+     * @return Идентификаторы по uri
+     */
+    public Map<String, Integer> getUriIds(Collection<String> values) {
+        return getOrCreateIds(uris, values);
+    }
+
+    /**
+     * Метод получения идентификаторов известных uri, неизвестные uri пропускаются
+     *
+     * @param values Список uri
+     * @return Список идентификаторов
+     */
+    public List<Integer> findUriIds(List<String> values) {
+        List<Integer> ids = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (String uri : values) {
+            Integer id = uris.ids.get(uri);
+            if (id != null) {
+                ids.add(id);
+            } else {
+                missing.add(uri);
+            }
+        }
+        if (!missing.isEmpty()) {
+            ids.addAll(load(uris, uris.value + " = ANY(:values)", "values", missing.toArray(new String[0])).values());
+        }
+        return ids;
+    }
+
+    /**
+     * Метод получения названия приложения по идентификатору
+     *
+     * @param id Идентификатор приложения
+     * @return Название приложения
+     */
+    public String getApp(int id) {
+        return getValue(apps, id);
+    }
+
+    /**
+     * Метод получения uri по идентификатору
+     *
+     * @param id Идентификатор uri
+     * @return Uri
+     */
+    public String getUri(int id) {
+        return getValue(uris, id);
+    }
+
+    private Map<String, Integer> getOrCreateIds(Dictionary dictionary, Collection<String> values) {
+        Map<String, Integer> result = new HashMap<>();
+        // Значения вставляются в одном порядке, чтобы параллельные транзакции не ждали друг друга по кругу
+        TreeSet<String> missing = new TreeSet<>();
+        for (String value : values) {
+            Integer id = dictionary.ids.get(value);
+            if (id != null) {
+                result.put(value, id);
+            } else {
+                missing.add(value);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        Map<String, Integer> found = new HashMap<>();
+        for (String value : missing) {
+            // Строка, вставленная параллельной транзакцией, возвращается запросом ниже после ее фиксации
+            namedParameterJdbcTemplate.query("INSERT INTO " + dictionary.table + " (" + dictionary.value + ") " +
+                            "VALUES (:value) ON CONFLICT (" + dictionary.value + ") DO NOTHING RETURNING id",
+                    new MapSqlParameterSource("value", value), rs -> {
+                        found.put(value, rs.getInt("id"));
+                    });
+        }
+        missing.removeAll(found.keySet());
+        if (!missing.isEmpty()) {
+            found.putAll(select(dictionary, dictionary.value + " = ANY(:values)", "values",
+                    missing.toArray(new String[0])));
+        }
+        result.putAll(found);
+        cacheAfterCommit(dictionary, found);
+        return result;
+    }
+
+    /**
+     * Метод сохранения в кэш значений, которые могли быть добавлены текущей транзакцией.
+     * При откате транзакции в кэше не должен остаться несуществующий идентификатор
+     */
+    private void cacheAfterCommit(Dictionary dictionary, Map<String, Integer> found) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dictionary.cache(found);
+                }
+            });
+        } else {
+            dictionary.cache(found);
+        }
+    }
+
+    private String getValue(Dictionary dictionary, int id) {
+        String value = dictionary.values.get(id);
+        if (value != null) {
+            return value;
+        }
+        Map<String, Integer> loaded = load(dictionary, "id = :id", "id", id);
+        if (loaded.isEmpty()) {
+            throw new IllegalStateException("Значение " + id + " отсутствует в словаре " + dictionary.table);
+        }
+        return loaded.keySet().iterator().next();
+    }
+
+    /**
+     * Метод чтения значений словаря из БД с сохранением в кэш
+     */
+    private Map<String, Integer> load(Dictionary dictionary, String condition, String param, Object value) {
+        Map<String, Integer> loaded = select(dictionary, condition, param, value);
+        dictionary.cache(loaded);
+        return loaded;
+    }
+
+    private Map<String, Integer> select(Dictionary dictionary, String condition, String param, Object value) {
+        Map<String, Integer> loaded = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT id, " + dictionary.value + " AS name FROM " + dictionary.table +
+                " WHERE " + condition, new MapSqlParameterSource(param, value), rs -> {
+            loaded.put(rs.getString("name"), rs.getInt("id"));
+        });
+        return loaded;
+    }
+
+    /**
+     * Таблица словаря и ее кэш в обе стороны
+     */
+    private static class Dictionary {
+        private final String table;
+        private final String value;
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final Map<Integer, String> values = new ConcurrentHashMap<>();
+
+        private Dictionary(String table, String value) {
+            this.table = table;
+            this.value = value;
+        }
+
+        private void cache(Map<String, Integer> loaded) {
+            loaded.forEach((name, id) -> {
+                ids.put(name, id);
+                values.put(id, name);
+            });
+        }
+    }
+}
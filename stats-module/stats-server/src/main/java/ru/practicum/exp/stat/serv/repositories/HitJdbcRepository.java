@@ -0,0 +1,189 @@
+package ru.practicum.exp.stat.serv.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.exp.stat.dto.ViewStatsDto;
+import ru.practicum.exp.stat.serv.models.Hit;
+import ru.practicum.exp.stat.serv.models.enums.RollupGranularity;
+import ru.practicum.exp.stat.serv.util.IpFormatter;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Класс HitJdbcRepository для пакетной записи hit'ов в БД через JDBC batch.
+ * App и uri записываются идентификаторами словарей, ip - типом inet.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitJdbcRepository {
+    private static final String INSERT_SQL = "INSERT INTO hits (app_id, uri_id, ip, time_stamp) VALUES (?, ?, ?::inet, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final HitDictionaryRepository hitDictionaryRepository;
+
+    /**
+     * Метод пакетной вставки hit'ов
+     *
+     * @param hits      Список объектов Hit
+     * @param batchSize Количество строк в одном JDBC batch
+     */
+    public void saveAll(List<Hit> hits, int batchSize) {
+        // Новые значения добавляются в словари до начала пакетной вставки
+        Map<String, Integer> appIds = hitDictionaryRepository.getAppIds(
+                hits.stream().map(Hit::getApp).collect(Collectors.toSet()));
+        Map<String, Integer> uriIds = hitDictionaryRepository.getUriIds(
+                hits.stream().map(Hit::getUri).collect(Collectors.toSet()));
+        jdbcTemplate.batchUpdate(INSERT_SQL, hits, batchSize, (ps, hit) -> {
+            ps.setInt(1, appIds.get(hit.getApp()));
+            ps.setInt(2, uriIds.get(hit.getUri()));
+            ps.setString(3, hit.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+        });
+    }
+
+    /**
+     * Метод получения статистики по каждому ip для uri с заданным префиксом
+     *
+     * @param uriPrefix Префикс uri
+     * @param handler   Обработчик строки результата
+     */
+    public void findIpStatsByUriPrefix(String uriPrefix, IpStatsHandler handler) {
+        jdbcTemplate.query("SELECT a.name AS app, u.uri, host(s.ip) AS ip, s.hits, s.first_hit, s.last_hit FROM (" +
+                        "SELECT h.app_id, h.uri_id, h.ip, COUNT(*) AS hits, " +
+                        "MIN(h.time_stamp) AS first_hit, MAX(h.time_stamp) AS last_hit FROM hits h " +
+                        "WHERE h.uri_id IN (SELECT id FROM hit_uris WHERE uri LIKE ?) " +
+                        "GROUP BY h.app_id, h.uri_id, h.ip) s " +
+                        "JOIN hit_apps a ON a.id = s.app_id JOIN hit_uris u ON u.id = s.uri_id",
+                rs -> {
+                    handler.handle(rs.getString("app"), rs.getString("uri"),
+                            IpFormatter.formatIp(rs.getString("ip")), rs.getLong("hits"),
+                            rs.getTimestamp("first_hit").toLocalDateTime().toEpochSecond(ZoneOffset.UTC),
+                            rs.getTimestamp("last_hit").toLocalDateTime().toEpochSecond(ZoneOffset.UTC));
+                }, uriPrefix + "%");
+    }
+
+    /**
+     * Метод построчной выдачи количества посещений по таблице hits, строки читаются курсором по fetch-size
+     * и не накапливаются в памяти. Для чтения курсором в PostgreSQL должен вызываться в транзакции.
+     *
+     * @param start    Дата и время начала диапазона (включительно)
+     * @param end      Дата и время конца диапазона (включительно)
+     * @param uris     Список uri для которых нужно выгрузить статистику или null для всех uri
+     * @param unique   Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @param consumer Получатель строк статистики в порядке убывания количества посещений
+     */
+    public void findStatsByDate(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                Consumer<ViewStatsDto> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+        String uriFilter = "";
+        if (uris != null) {
+            // Список передается одним параметром-массивом: число параметров запроса в PostgreSQL ограничено 32767
+            params.addValue("uris", uris.toArray(new String[0]));
+            uriFilter = " AND h.uri_id IN (SELECT id FROM hit_uris WHERE uri = ANY(:uris))";
+        }
+        namedParameterJdbcTemplate.query("SELECT a.name AS app, u.uri, c.hits FROM (" +
+                        "SELECT h.app_id, h.uri_id, " + (unique ? "COUNT(DISTINCT h.ip)" : "COUNT(*)") + " AS hits " +
+                        "FROM hits h WHERE h.time_stamp BETWEEN :start AND :end" + uriFilter +
+                        " GROUP BY h.app_id, h.uri_id) c " +
+                        "JOIN hit_apps a ON a.id = c.app_id JOIN hit_uris u ON u.id = c.uri_id " +
+                        "ORDER BY c.hits DESC", params,
+                (RowCallbackHandler) rs -> consumer.accept(
+                        new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits"))));
+    }
+
+    /**
+     * Метод получения точного списка самых посещаемых uri за период
+     *
+     * @param start Дата и время начала диапазона (включительно)
+     * @param end   Дата и время конца диапазона (включительно)
+     * @param n     Количество uri
+     * @return Список статистики в порядке убывания количества посещений
+     */
+    public List<ViewStatsDto> findTopByDate(LocalDateTime start, LocalDateTime end, int n) {
+        return jdbcTemplate.query("SELECT a.name AS app, u.uri, c.hits FROM (" +
+                        "SELECT h.app_id, h.uri_id, COUNT(*) AS hits FROM hits h " +
+                        "WHERE h.time_stamp BETWEEN ? AND ? GROUP BY h.app_id, h.uri_id " +
+                        "ORDER BY hits DESC LIMIT ?) c " +
+                        "JOIN hit_apps a ON a.id = c.app_id JOIN hit_uris u ON u.id = c.uri_id " +
+                        "ORDER BY c.hits DESC",
+                (rs, rowNum) -> new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")),
+                Timestamp.valueOf(start), Timestamp.valueOf(end), n);
+    }
+
+    /**
+     * Метод получения количества посещений по интервалам заданной гранулярности одним сгруппированным проходом
+     *
+     * @param granularity  Гранулярность интервалов
+     * @param start        Дата и время начала диапазона (включительно)
+     * @param endExclusive Дата и время конца диапазона (не включительно)
+     * @param uris         Список uri
+     * @param unique       Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @param handler      Обработчик строки результата
+     */
+    public void findSeries(RollupGranularity granularity, LocalDateTime start, LocalDateTime endExclusive,
+                           List<String> uris, boolean unique, BucketCountHandler handler) {
+        if (!start.isBefore(endExclusive)) {
+            return;
+        }
+        String bucket = "date_trunc('" + granularity.name().toLowerCase() + "', h.time_stamp)";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(endExclusive))
+                .addValue("uris", uris.toArray(new String[0]));
+        namedParameterJdbcTemplate.query("SELECT a.name AS app, u.uri, c.bucket_start, c.hits FROM (" +
+                        "SELECT h.app_id, h.uri_id, " + bucket + " AS bucket_start, " +
+                        (unique ? "COUNT(DISTINCT h.ip)" : "COUNT(*)") + " AS hits FROM hits h " +
+                        "WHERE h.time_stamp >= :start AND h.time_stamp < :end " +
+                        "AND h.uri_id IN (SELECT id FROM hit_uris WHERE uri = ANY(:uris)) " +
+                        "GROUP BY h.app_id, h.uri_id, " + bucket + ") c " +
+                        "JOIN hit_apps a ON a.id = c.app_id JOIN hit_uris u ON u.id = c.uri_id", params,
+                (RowCallbackHandler) rs -> handler.handle(rs.getString("app"), rs.getString("uri"),
+                        rs.getTimestamp("bucket_start").toLocalDateTime(), rs.getLong("hits")));
+    }
+
+    /**
+     * Метод получения количества посещений по каждому часу, начиная с заданного момента
+     *
+     * @param from    Начало первого часа (включительно)
+     * @param handler Обработчик строки результата
+     */
+    public void findHourlyCounts(LocalDateTime from, BucketCountHandler handler) {
+        jdbcTemplate.query("SELECT a.name AS app, u.uri, c.bucket_start, c.hits FROM (" +
+                        "SELECT h.app_id, h.uri_id, date_trunc('hour', h.time_stamp) AS bucket_start, COUNT(*) AS hits " +
+                        "FROM hits h WHERE h.time_stamp >= ? " +
+                        "GROUP BY h.app_id, h.uri_id, date_trunc('hour', h.time_stamp)) c " +
+                        "JOIN hit_apps a ON a.id = c.app_id JOIN hit_uris u ON u.id = c.uri_id",
+                (RowCallbackHandler) rs -> handler.handle(rs.getString("app"), rs.getString("uri"),
+                        rs.getTimestamp("bucket_start").toLocalDateTime(), rs.getLong("hits")),
+                Timestamp.valueOf(from));
+    }
+
+    /**
+     * Обработчик строки статистики по ip
+     */
+    @FunctionalInterface
+    public interface IpStatsHandler {
+        void handle(String app, String uri, String ip, long hits, long firstEpochSecond, long lastEpochSecond);
+    }
+
+    /**
+     * Обработчик строки количества посещений за интервал
+     */
+    @FunctionalInterface
+    public interface BucketCountHandler {
+        void handle(String app, String uri, LocalDateTime bucket, long hits);
+    }
+}
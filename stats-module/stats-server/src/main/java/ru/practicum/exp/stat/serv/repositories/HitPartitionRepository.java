@@ -0,0 +1,201 @@
+package ru.practicum.exp.stat.serv.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Класс HitPartitionRepository для управления секциями таблицы hits (PostgreSQL)
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitPartitionRepository {
+    public static final String PARTITION_PREFIX = "hits_p";
+    // Имена секций подставляются в DDL, поэтому допускаются только имена вида hits_pГГГГММ
+    private static final Pattern PARTITION_NAME = Pattern.compile(PARTITION_PREFIX + "\\d{6}");
+    // Ключ рекомендательной блокировки подготовки таблицы hits
+    private static final long MIGRATION_LOCK_KEY = 0x68697473L;
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // Покрывающий индекс позволяет считать COUNT и COUNT(DISTINCT ip) по uri без чтения строк таблицы
+    private static final String CREATE_INDEX_SQL = "CREATE INDEX ix_hits_uri_time ON hits (uri_id, time_stamp) " +
+            "INCLUDE (app_id, ip)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Метод блокировки подготовки таблицы hits до конца транзакции. Экземпляры сервиса, запущенные
+     * одновременно, проверяют и переводят таблицу по очереди
+     */
+    public void lockMigration() {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", MIGRATION_LOCK_KEY);
+    }
+
+    /**
+     * Метод проверки, является ли таблица hits секционированной
+     *
+     * @return true, если таблица секционирована
+     */
+    public boolean isPartitioned() {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE relname = 'hits' AND relkind IN ('r', 'p')", String.class);
+        return kinds.contains("p");
+    }
+
+    /**
+     * Метод проверки, хранятся ли в таблице hits app и uri строками (формат до перехода на словари)
+     *
+     * @return true, если таблица в прежнем формате
+     */
+    public boolean hasLegacyColumns() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE table_schema = current_schema() AND table_name = 'hits' AND column_name = 'app'", Integer.class);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Метод перевода обычной таблицы hits в секционированную по time_stamp.
+     * Таблица в прежнем формате при переносе переводится на словари app и uri и тип inet для ip.
+     * Должен выполняться в транзакции, секции под переносимые данные создаются через createPartitions.
+     *
+     * @param createPartitions Создание секций по диапазону дат перенесенных hit'ов (min, max)
+     * @return Количество перенесенных hit'ов
+     */
+    public int migrateToPartitioned(PartitionCreator createPartitions) {
+        boolean legacyColumns = hasLegacyColumns();
+        jdbcTemplate.execute("ALTER TABLE hits RENAME TO hits_legacy");
+        jdbcTemplate.execute("CREATE TABLE hits(" +
+                "id BIGINT GENERATED BY DEFAULT AS IDENTITY, " +
+                "app_id INT NOT NULL, " +
+                "uri_id INT NOT NULL, " +
+                "ip INET NOT NULL, " +
+                "time_stamp TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                "CONSTRAINT pk_hits PRIMARY KEY (id, time_stamp)" +
+                ") PARTITION BY RANGE (time_stamp)");
+        jdbcTemplate.execute("CREATE TABLE hits_default PARTITION OF hits DEFAULT");
+        jdbcTemplate.execute(CREATE_INDEX_SQL);
+        jdbcTemplate.query("SELECT MIN(time_stamp) AS min_ts, MAX(time_stamp) AS max_ts FROM hits_legacy", rs -> {
+            Timestamp min = rs.getTimestamp("min_ts");
+            if (min != null) {
+                createPartitions.create(min.toLocalDateTime(), rs.getTimestamp("max_ts").toLocalDateTime());
+            }
+        });
+        int moved;
+        if (legacyColumns) {
+            fillDictionaries("hits_legacy");
+            createToInetFunction();
+            moved = jdbcTemplate.update("INSERT INTO hits (id, app_id, uri_id, ip, time_stamp) " +
+                    "SELECT l.id, a.id, u.id, l.ip, l.time_stamp FROM (" +
+                    "SELECT id, app, uri, pg_temp.to_inet(ip) AS ip, time_stamp FROM hits_legacy " +
+                    "WHERE time_stamp IS NOT NULL) l " +
+                    "JOIN hit_apps a ON a.name = l.app JOIN hit_uris u ON u.uri = l.uri WHERE l.ip IS NOT NULL");
+        } else {
+            moved = jdbcTemplate.update("INSERT INTO hits (id, app_id, uri_id, ip, time_stamp) " +
+                    "SELECT id, app_id, uri_id, ip, time_stamp FROM hits_legacy WHERE time_stamp IS NOT NULL");
+        }
+        jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence('hits', 'id'), COALESCE(MAX(id), 0) + 1, false) " +
+                "FROM hits", Long.class);
+        jdbcTemplate.execute("DROP TABLE hits_legacy");
+        return moved;
+    }
+
+    /**
+     * Метод перевода таблицы hits в прежнем формате на словари app и uri и тип inet для ip без переноса строк.
+     * Используется для уже секционированной таблицы или при отключенном секционировании, должен выполняться в транзакции.
+     *
+     * @return Количество удаленных hit'ов с ip, который нельзя привести к типу inet
+     */
+    public int convertLegacyColumns() {
+        fillDictionaries("hits");
+        createToInetFunction();
+        int removed = jdbcTemplate.update("DELETE FROM hits WHERE pg_temp.to_inet(ip) IS NULL");
+        jdbcTemplate.execute("ALTER TABLE hits ADD COLUMN app_id INT, ADD COLUMN uri_id INT");
+        jdbcTemplate.update("UPDATE hits h SET app_id = a.id, uri_id = u.id FROM hit_apps a, hit_uris u " +
+                "WHERE a.name = h.app AND u.uri = h.uri");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS ix_hits_uri_time");
+        jdbcTemplate.execute("ALTER TABLE hits DROP COLUMN app, DROP COLUMN uri, " +
+                "ALTER COLUMN app_id SET NOT NULL, ALTER COLUMN uri_id SET NOT NULL, " +
+                "ALTER COLUMN ip TYPE INET USING ip::inet");
+        if (isPartitioned()) {
+            jdbcTemplate.execute(CREATE_INDEX_SQL);
+        }
+        return removed;
+    }
+
+    private void fillDictionaries(String table) {
+        jdbcTemplate.update("INSERT INTO hit_apps (name) SELECT DISTINCT app FROM " + table +
+                " ON CONFLICT (name) DO NOTHING");
+        jdbcTemplate.update("INSERT INTO hit_uris (uri) SELECT DISTINCT uri FROM " + table +
+                " ON CONFLICT (uri) DO NOTHING");
+    }
+
+    /**
+     * Временная функция приведения строки к inet, для некорректного адреса возвращает NULL
+     */
+    private void createToInetFunction() {
+        jdbcTemplate.execute("CREATE OR REPLACE FUNCTION pg_temp.to_inet(value TEXT) RETURNS INET LANGUAGE plpgsql AS $$ " +
+                "BEGIN RETURN value::inet; EXCEPTION WHEN invalid_text_representation THEN RETURN NULL; END $$");
+    }
+
+    /**
+     * Метод получения имен секций таблицы hits (кроме секции по умолчанию)
+     *
+     * @return Список имен секций
+     */
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = 'hits' AND c.relname ~ '^" + PARTITION_NAME.pattern() + "$'", String.class);
+    }
+
+    /**
+     * Метод создания секции
+     *
+     * @param name Имя секции
+     * @param from Начало диапазона (включительно)
+     * @param to   Конец диапазона (не включительно)
+     */
+    public void createPartition(String name, LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + checkName(name) + " PARTITION OF hits " +
+                "FOR VALUES FROM ('" + from.format(BOUND_FORMAT) + "') TO ('" + to.format(BOUND_FORMAT) + "')");
+    }
+
+    /**
+     * Метод удаления секции
+     *
+     * @param name Имя секции
+     */
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + checkName(name));
+    }
+
+    /**
+     * Метод отсоединения секции, данные остаются в отдельной таблице для архивирования
+     *
+     * @param name Имя секции
+     */
+    public void detachPartition(String name) {
+        jdbcTemplate.execute("ALTER TABLE hits DETACH PARTITION " + checkName(name));
+    }
+
+    private static String checkName(String name) {
+        if (!PARTITION_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Недопустимое имя секции: " + name);
+        }
+        return name;
+    }
+
+    /**
+     * Создание секций по диапазону дат
+     */
+    @FunctionalInterface
+    public interface PartitionCreator {
+        void create(LocalDateTime min, LocalDateTime max);
+    }
+}
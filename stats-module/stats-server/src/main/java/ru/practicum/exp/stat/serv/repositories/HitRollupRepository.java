@@ -0,0 +1,236 @@
+package ru.practicum.exp.stat.serv.repositories;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.exp.stat.dto.ViewStatsDto;
+import ru.practicum.exp.stat.serv.models.Hit;
+import ru.practicum.exp.stat.serv.models.enums.RollupGranularity;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Класс HitRollupRepository для работы с таблицами предагрегированных hit'ов.
+ * Для каждой гранулярности (минута, час, сутки) хранится количество hit'ов по app, uri и началу интервала.
+ * Транзакции записи hit'ов только дописывают поминутные количества в hits_rollup_delta, перенос в агрегаты
+ * выполняется фоновой задачей, поэтому параллельные записи одного uri не ждут друг друга на строках агрегатов.
+ * Чтение суммирует агрегаты и еще не перенесенные строки hits_rollup_delta.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitRollupRepository {
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator.comparing(RollupKey::getBucket)
+            .thenComparing(RollupKey::getApp)
+            .thenComparing(RollupKey::getUri);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Метод добавления поминутных количеств новых hit'ов без блокировки строк агрегатов.
+     * Должен вызываться в той же транзакции, что и запись hit'ов в таблицу hits.
+     *
+     * @param hits Список объектов Hit
+     */
+    public void append(List<Hit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        Map<RollupKey, Long> counts = new HashMap<>();
+        for (Hit hit : hits) {
+            counts.merge(new RollupKey(hit.getApp(), hit.getUri(), RollupGranularity.MINUTE.floor(hit.getTimestamp())),
+                    1L, Long::sum);
+        }
+        List<Object[]> rows = new ArrayList<>();
+        counts.forEach((key, count) ->
+                rows.add(new Object[]{key.getApp(), key.getUri(), Timestamp.valueOf(key.getBucket()), count}));
+        jdbcTemplate.batchUpdate("INSERT INTO hits_rollup_delta (app, uri, bucket_start, hits) VALUES (?, ?, ?, ?)",
+                rows);
+    }
+
+    /**
+     * Метод переноса пакета добавленных количеств в агрегаты всех гранулярностей. Должен вызываться в транзакции:
+     * удаление из hits_rollup_delta и увеличение агрегатов фиксируются вместе.
+     * Строки, обрабатываемые параллельной транзакцией, пропускаются.
+     *
+     * @param limit Максимальное количество переносимых строк
+     * @return Количество перенесенных строк
+     */
+    public int compact(int limit) {
+        Map<RollupKey, Long> deltas = new HashMap<>();
+        int[] count = {0};
+        jdbcTemplate.query("DELETE FROM hits_rollup_delta WHERE id IN (SELECT id FROM hits_rollup_delta " +
+                "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING app, uri, bucket_start, hits", rs -> {
+                    deltas.merge(new RollupKey(rs.getString("app"), rs.getString("uri"),
+                            rs.getTimestamp("bucket_start").toLocalDateTime()), rs.getLong("hits"), Long::sum);
+                    count[0]++;
+                }, limit);
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            // Ключи сортируются, чтобы параллельные переносы блокировали строки в одном порядке
+            Map<RollupKey, Long> counts = new TreeMap<>(KEY_ORDER);
+            deltas.forEach((key, hits) -> counts.merge(
+                    new RollupKey(key.getApp(), key.getUri(), granularity.floor(key.getBucket())), hits, Long::sum));
+            String sql = "INSERT INTO " + granularity.getTable() + " AS r (app, uri, bucket_start, hits) " +
+                    "VALUES (?, ?, ?, ?) " +
+                    "ON CONFLICT (bucket_start, app, uri) DO UPDATE SET hits = r.hits + EXCLUDED.hits";
+            jdbcTemplate.batchUpdate(sql, new ArrayList<>(counts.entrySet()), counts.size(), (ps, entry) -> {
+                ps.setString(1, entry.getKey().getApp());
+                ps.setString(2, entry.getKey().getUri());
+                ps.setTimestamp(3, Timestamp.valueOf(entry.getKey().getBucket()));
+                ps.setLong(4, entry.getValue());
+            });
+        }
+        return count[0];
+    }
+
+    /**
+     * Метод первичного заполнения агрегатов по уже сохраненным hit'ам, выполняется только для пустых таблиц.
+     * Если есть еще не перенесенные строки hits_rollup_delta, все hit'ы после заполнения уже учтены в них.
+     * Должен вызываться до начала приема hit'ов.
+     */
+    public void fillIfEmpty() {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            String bucket = "date_trunc('" + granularity.name().toLowerCase() + "', h.time_stamp)";
+            jdbcTemplate.update("INSERT INTO " + granularity.getTable() + " (app, uri, bucket_start, hits) " +
+                    "SELECT a.name, u.uri, c.bucket_start, c.hits FROM (" +
+                    "SELECT h.app_id, h.uri_id, " + bucket + " AS bucket_start, COUNT(*) AS hits FROM hits h " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM " + granularity.getTable() + ") " +
+                    "AND NOT EXISTS (SELECT 1 FROM hits_rollup_delta) " +
+                    "GROUP BY h.app_id, h.uri_id, " + bucket + ") c " +
+                    "JOIN hit_apps a ON a.id = c.app_id JOIN hit_uris u ON u.id = c.uri_id");
+        }
+    }
+
+    /**
+     * Метод получения количества hit'ов за период.
+     * Целые сутки, часы и минуты периода берутся из агрегатов и hits_rollup_delta,
+     * неполные минуты на краях - из таблицы hits.
+     *
+     * @param start        Дата и время начала диапазона (включительно)
+     * @param endExclusive Дата и время конца диапазона (не включительно)
+     * @param uris         Список uri для которых нужно выгрузить статистику или null для всех uri
+     * @return Сформированный список статистики по посещениям
+     */
+    public List<ViewStatsDto> findByDate(LocalDateTime start, LocalDateTime endExclusive, List<String> uris) {
+        List<ViewStatsDto> result = new ArrayList<>();
+        findByDate(start, endExclusive, uris, result::add);
+        return result;
+    }
+
+    /**
+     * Метод построчной выдачи количества hit'ов за период, строки читаются курсором по fetch-size
+     * и не накапливаются в памяти. Для чтения курсором в PostgreSQL должен вызываться в транзакции.
+     *
+     * @param start        Дата и время начала диапазона (включительно)
+     * @param endExclusive Дата и время конца диапазона (не включительно)
+     * @param uris         Список uri для которых нужно выгрузить статистику или null для всех uri
+     * @param consumer     Получатель строк статистики в порядке убывания количества hit'ов
+     */
+    public void findByDate(LocalDateTime start, LocalDateTime endExclusive, List<String> uris,
+                           Consumer<ViewStatsDto> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (uris != null) {
+            params.addValue("uris", uris.toArray(new String[0]));
+        }
+        List<String> parts = new ArrayList<>();
+        planSegments(start, endExclusive, 0, uris, params, parts);
+        if (parts.isEmpty()) {
+            return;
+        }
+        String sql = "SELECT app, uri, SUM(hits) AS hits FROM (" + String.join(" UNION ALL ", parts) + ") s " +
+                "GROUP BY app, uri ORDER BY SUM(hits) DESC";
+        namedParameterJdbcTemplate.query(sql, params,
+                (RowCallbackHandler) rs -> consumer.accept(
+                        new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits"))));
+    }
+
+    /**
+     * Метод получения количества hit'ов по интервалам из таблицы агрегатов заданной гранулярности
+     * и еще не перенесенных строк hits_rollup_delta. Границы периода должны быть выровнены по гранулярности,
+     * строки одного интервала суммируются обработчиком.
+     *
+     * @param granularity Гранулярность интервалов
+     * @param from        Начало первого интервала (включительно)
+     * @param to          Начало интервала, следующего за последним (не включительно)
+     * @param uris        Список uri
+     * @param handler     Обработчик строки результата
+     */
+    public void findSeries(RollupGranularity granularity, LocalDateTime from, LocalDateTime to, List<String> uris,
+                           HitJdbcRepository.BucketCountHandler handler) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to))
+                .addValue("uris", uris.toArray(new String[0]));
+        String condition = " WHERE bucket_start >= :from AND bucket_start < :to AND uri = ANY(:uris)";
+        namedParameterJdbcTemplate.query("SELECT app, uri, bucket_start, hits FROM " + granularity.getTable() +
+                        condition + " UNION ALL SELECT app, uri, date_trunc('" + granularity.name().toLowerCase() +
+                        "', bucket_start) AS bucket_start, hits FROM hits_rollup_delta" + condition, params,
+                (RowCallbackHandler) rs -> handler.handle(rs.getString("app"), rs.getString("uri"),
+                        rs.getTimestamp("bucket_start").toLocalDateTime(), rs.getLong("hits")));
+    }
+
+    /**
+     * Метод разбиения периода на интервалы: самые крупные выровненные интервалы в середине,
+     * остатки слева и справа рекурсивно разбиваются более мелкими интервалами вплоть до сырых hit'ов
+     */
+    private void planSegments(LocalDateTime from, LocalDateTime to, int level, List<String> uris,
+                              MapSqlParameterSource params, List<String> parts) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        RollupGranularity[] granularities = RollupGranularity.values();
+        if (level == granularities.length) {
+            addSegment("SELECT a.name AS app, u.uri, c.hits FROM (SELECT app_id, uri_id, COUNT(*) AS hits FROM hits " +
+                            "WHERE time_stamp >= :from%1$d AND time_stamp < :to%1$d%2$s GROUP BY app_id, uri_id) c " +
+                            "JOIN hit_apps a ON a.id = c.app_id JOIN hit_uris u ON u.id = c.uri_id",
+                    " AND uri_id IN (SELECT id FROM hit_uris WHERE uri = ANY(:uris))", from, to, uris, params, parts);
+            return;
+        }
+        RollupGranularity granularity = granularities[level];
+        LocalDateTime alignedFrom = granularity.ceil(from);
+        LocalDateTime alignedTo = granularity.floor(to);
+        if (!alignedFrom.isBefore(alignedTo)) {
+            planSegments(from, to, level + 1, uris, params, parts);
+            return;
+        }
+        planSegments(from, alignedFrom, level + 1, uris, params, parts);
+        String condition = " WHERE bucket_start >= :from%1$d AND bucket_start < :to%1$d%2$s";
+        addSegment("SELECT app, uri, hits FROM " + granularity.getTable() + condition +
+                        " UNION ALL SELECT app, uri, hits FROM hits_rollup_delta" + condition,
+                " AND uri = ANY(:uris)", alignedFrom, alignedTo, uris, params, parts);
+        planSegments(alignedTo, to, level + 1, uris, params, parts);
+    }
+
+    private void addSegment(String select, String uriFilter, LocalDateTime from, LocalDateTime to, List<String> uris,
+                            MapSqlParameterSource params, List<String> parts) {
+        int index = parts.size();
+        params.addValue("from" + index, Timestamp.valueOf(from));
+        params.addValue("to" + index, Timestamp.valueOf(to));
+        parts.add(String.format(select, index, uris == null ? "" : uriFilter));
+    }
+
+    @Value
+    private static class RollupKey {
+        String app;
+        String uri;
+        LocalDateTime bucket;
+    }
+}
@@ -0,0 +1,166 @@
+package ru.practicum.exp.stat.serv.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.exp.stat.serv.models.AppUri;
+import ru.practicum.exp.stat.serv.util.HyperLogLog;
+import ru.practicum.exp.stat.serv.util.IpFormatter;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Класс HitSketchRepository для работы с суточными HyperLogLog-оценками уникальных ip.
+ * Транзакции записи hit'ов только дописывают оценки в hits_hll_day_delta, объединение с hits_hll_day
+ * выполняется пакетами в фоне, при чтении учитываются обе таблицы.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitSketchRepository {
+    private static final String SELECT_FOR_UPDATE_SQL = "SELECT sketch FROM hits_hll_day " +
+            "WHERE bucket_start = ? AND app = ? AND uri = ? FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final HitDictionaryRepository hitDictionaryRepository;
+
+    /**
+     * Метод получения момента, с которого ведутся оценки
+     *
+     * @return Дата и время начала ведения оценок
+     */
+    public LocalDateTime findTrackedSince() {
+        return jdbcTemplate.queryForObject("SELECT tracked_since FROM hits_hll_state WHERE id = 1",
+                Timestamp.class).toLocalDateTime();
+    }
+
+    /**
+     * Метод добавления оценок по новым ip без блокировки сохраненных оценок
+     *
+     * @param additions Оценки по началу суток, приложению и uri
+     */
+    public void append(Map<LocalDateTime, Map<AppUri, HyperLogLog>> additions) {
+        List<Object[]> rows = new ArrayList<>();
+        additions.forEach((bucket, sketches) -> sketches.forEach((key, sketch) ->
+                rows.add(new Object[]{key.getApp(), key.getUri(), Timestamp.valueOf(bucket), sketch.toBytes()})));
+        jdbcTemplate.batchUpdate("INSERT INTO hits_hll_day_delta (app, uri, bucket_start, sketch) VALUES (?, ?, ?, ?)",
+                rows);
+    }
+
+    /**
+     * Метод переноса пакета добавленных оценок в hits_hll_day. Должен вызываться в транзакции:
+     * удаление из hits_hll_day_delta и запись объединенных оценок фиксируются вместе.
+     * Строки, обрабатываемые параллельной транзакцией, пропускаются.
+     *
+     * @param limit Максимальное количество переносимых строк
+     * @return Количество перенесенных строк
+     */
+    public int compact(int limit) {
+        // Ключи сортируются, чтобы параллельные переносы блокировали строки hits_hll_day в одном порядке
+        Map<LocalDateTime, Map<AppUri, HyperLogLog>> deltas = new TreeMap<>();
+        int[] count = {0};
+        jdbcTemplate.query("DELETE FROM hits_hll_day_delta WHERE id IN (SELECT id FROM hits_hll_day_delta " +
+                "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING app, uri, bucket_start, sketch", rs -> {
+                    HyperLogLog sketch = HyperLogLog.fromBytes(rs.getBytes("sketch"));
+                    deltas.computeIfAbsent(rs.getTimestamp("bucket_start").toLocalDateTime(), b -> new TreeMap<>())
+                            .merge(new AppUri(rs.getString("app"), rs.getString("uri")), sketch, (a, b) -> {
+                                a.merge(b);
+                                return a;
+                            });
+                    count[0]++;
+                }, limit);
+        deltas.forEach((bucket, sketches) -> sketches.forEach((key, sketch) -> merge(key, bucket, sketch)));
+        return count[0];
+    }
+
+    /**
+     * Метод объединения сохраненной оценки с новыми значениями.
+     * Строка блокируется до конца транзакции, запись выполняется только при изменении оценки.
+     *
+     * @param key       Приложение и uri
+     * @param bucket    Начало суток
+     * @param additions Оценка по новым ip
+     */
+    private void merge(AppUri key, LocalDateTime bucket, HyperLogLog additions) {
+        Timestamp bucketStart = Timestamp.valueOf(bucket);
+        List<byte[]> stored = jdbcTemplate.query(SELECT_FOR_UPDATE_SQL, (rs, rowNum) -> rs.getBytes(1),
+                bucketStart, key.getApp(), key.getUri());
+        if (stored.isEmpty()) {
+            int inserted = jdbcTemplate.update("INSERT INTO hits_hll_day (app, uri, bucket_start, sketch) " +
+                            "VALUES (?, ?, ?, ?) ON CONFLICT (bucket_start, app, uri) DO NOTHING",
+                    key.getApp(), key.getUri(), bucketStart, additions.toBytes());
+            if (inserted == 1) {
+                return;
+            }
+            stored = jdbcTemplate.query(SELECT_FOR_UPDATE_SQL, (rs, rowNum) -> rs.getBytes(1),
+                    bucketStart, key.getApp(), key.getUri());
+        }
+        HyperLogLog sketch = HyperLogLog.fromBytes(stored.get(0));
+        if (sketch.merge(additions)) {
+            jdbcTemplate.update("UPDATE hits_hll_day SET sketch = ? WHERE bucket_start = ? AND app = ? AND uri = ?",
+                    sketch.toBytes(), bucketStart, key.getApp(), key.getUri());
+        }
+    }
+
+    /**
+     * Метод объединения суточных оценок за период, включая еще не перенесенные добавления
+     *
+     * @param from   Начало первых суток (включительно)
+     * @param to     Начало последних суток (не включительно)
+     * @param uris   Список uri или null для всех uri
+     * @param target Оценки по приложению и uri, в которые добавляется результат
+     */
+    public void mergeSketches(LocalDateTime from, LocalDateTime to, List<String> uris, Map<AppUri, HyperLogLog> target) {
+        MapSqlParameterSource params = rangeParams(from, to, uris);
+        String condition = " WHERE bucket_start >= :from AND bucket_start < :to" +
+                (uris == null ? "" : " AND uri = ANY(:uris)");
+        String sql = "SELECT app, uri, sketch FROM hits_hll_day" + condition +
+                " UNION ALL SELECT app, uri, sketch FROM hits_hll_day_delta" + condition;
+        namedParameterJdbcTemplate.query(sql, params, rs -> {
+            HyperLogLog sketch = HyperLogLog.fromBytes(rs.getBytes("sketch"));
+            target.merge(new AppUri(rs.getString("app"), rs.getString("uri")), sketch, (a, b) -> {
+                a.merge(b);
+                return a;
+            });
+        });
+    }
+
+    /**
+     * Метод добавления в оценки ip из сохраненных hit'ов за период
+     *
+     * @param from   Дата и время начала (включительно)
+     * @param to     Дата и время конца (не включительно)
+     * @param uris   Список uri или null для всех uri
+     * @param target Оценки по приложению и uri, в которые добавляется результат
+     */
+    public void mergeIps(LocalDateTime from, LocalDateTime to, List<String> uris, Map<AppUri, HyperLogLog> target) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        MapSqlParameterSource params = rangeParams(from, to, uris);
+        String sql = "SELECT app_id, uri_id, host(ip) AS ip FROM hits WHERE time_stamp >= :from AND time_stamp < :to" +
+                (uris == null ? "" : " AND uri_id IN (SELECT id FROM hit_uris WHERE uri = ANY(:uris))");
+        namedParameterJdbcTemplate.query(sql, params, rs -> {
+            AppUri key = new AppUri(hitDictionaryRepository.getApp(rs.getInt("app_id")),
+                    hitDictionaryRepository.getUri(rs.getInt("uri_id")));
+            target.computeIfAbsent(key, k -> new HyperLogLog()).add(IpFormatter.formatIp(rs.getString("ip")));
+        });
+    }
+
+    private MapSqlParameterSource rangeParams(LocalDateTime from, LocalDateTime to, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        if (uris != null) {
+            params.addValue("uris", uris.toArray(new String[0]));
+        }
+        return params;
+    }
+}
@@ -1,18 +1,27 @@
 package ru.practicum.exp.stat.serv.repositories;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
-import ru.practicum.exp.stat.dto.ViewStatsDto;
-import ru.practicum.exp.stat.serv.models.Hit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.exp.stat.serv.models.HitCount;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.List;
 
 /**
- * Интерфейс StatsRepository для обработки запросов к БД
+ * Класс StatsRepository для обработки запросов к БД.
+ * Группировка выполняется по идентификаторам приложения и uri, имена восстанавливаются из словарей после агрегации.
  */
-public interface StatsRepository extends JpaRepository<Hit, Long> {
+@Repository
+@RequiredArgsConstructor
+public class StatsRepository {
+    private static final RowMapper<HitCount> HIT_COUNT_MAPPER = (rs, rowNum) ->
+            new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits"));
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
     /**
      * Метод получения списка посещений по времени начала и конца
@@ -21,11 +30,9 @@ public interface StatsRepository extends JpaRepository<Hit, Long> {
      * @param end   Дата и время конца диапазона за который нужно выгрузить статистику
      * @return Сформированный список статистики по посещениям
      */
-    @Query("SELECT NEW ru.practicum.exp.stat.dto.ViewStatsDto(h.app, h.uri, COUNT (h.ip)) FROM Hit AS h " +
-            "WHERE h.timestamp BETWEEN :start AND :end " +
-            "GROUP BY h.app, h.uri " +
-            "ORDER BY COUNT (h.ip) DESC")
-    List<ViewStatsDto> findByDate(LocalDateTime start, LocalDateTime end);
+    public List<HitCount> findByDate(LocalDateTime start, LocalDateTime end) {
+        return find("COUNT(*)", start, end, null);
+    }
 
     /**
      * Метод получения списка посещений по времени начала и конца только с уникальным ip
@@ -34,37 +41,47 @@ public interface StatsRepository extends JpaRepository<Hit, Long> {
      * @param end   Дата и время конца диапазона за который нужно выгрузить статистику
      * @return Сформированный список статистики по посещениям
      */
-    @Query("SELECT NEW ru.practicum.exp.stat.dto.ViewStatsDto(h.app, h.uri, COUNT (DISTINCT h.ip)) FROM Hit AS h " +
-            "WHERE h.timestamp BETWEEN :start AND :end " +
-            "GROUP BY h.app, h.uri " +
-            "ORDER BY COUNT (h.ip) DESC")
-    List<ViewStatsDto> findByDateAndUniqueIp(LocalDateTime start, LocalDateTime end);
+    public List<HitCount> findByDateAndUniqueIp(LocalDateTime start, LocalDateTime end) {
+        return find("COUNT(DISTINCT h.ip)", start, end, null);
+    }
 
     /**
      * Метод получения списка посещений по времени начала и конца
      *
-     * @param start Дата и время начала диапазона за который нужно выгрузить статистику
-     * @param end   Дата и время конца диапазона за который нужно выгрузить статистику
-     * @param uris  Список uri для которых нужно выгрузить статистику
+     * @param start  Дата и время начала диапазона за который нужно выгрузить статистику
+     * @param end    Дата и время конца диапазона за который нужно выгрузить статистику
+     * @param uriIds Список идентификаторов uri для которых нужно выгрузить статистику
      * @return Сформированный список статистики по посещениям
      */
-    @Query("SELECT NEW ru.practicum.exp.stat.dto.ViewStatsDto(h.app, h.uri, COUNT (h.ip)) FROM Hit AS h " +
-            "WHERE h.timestamp BETWEEN :start AND :end AND h.uri IN :uris " +
-            "GROUP BY h.app, h.uri " +
-            "ORDER BY COUNT (h.ip) DESC")
-    List<ViewStatsDto> findByDateAndUris(LocalDateTime start, LocalDateTime end, @Param("uris") List<String> uris);
+    public List<HitCount> findByDateAndUris(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        return find("COUNT(*)", start, end, uriIds);
+    }
 
     /**
      * Метод получения списка посещений по времени начала и конца только с уникальным ip
      *
-     * @param start Дата и время начала диапазона за который нужно выгрузить статистику
-     * @param end   Дата и время конца диапазона за который нужно выгрузить статистику
-     * @param uris  Список uri для которых нужно выгрузить статистику
+     * @param start  Дата и время начала диапазона за который нужно выгрузить статистику
+     * @param end    Дата и время конца диапазона за который нужно выгрузить статистику
+     * @param uriIds Список идентификаторов uri для которых нужно выгрузить статистику
      * @return Сформированный список статистики по посещениям
      */
-    @Query("SELECT NEW ru.practicum.exp.stat.dto.ViewStatsDto(h.app, h.uri, COUNT (DISTINCT h.ip)) FROM Hit AS h " +
-            "WHERE h.timestamp BETWEEN :start AND :end AND h.uri IN :uris " +
-            "GROUP BY h.app, h.uri " +
-            "ORDER BY COUNT (h.ip) DESC")
-    List<ViewStatsDto> findByDateAndUrisWithUniqueIp(LocalDateTime start, LocalDateTime end, @Param("uris") List<String> uris);
-}
\ No newline at end of file
+    public List<HitCount> findByDateAndUrisWithUniqueIp(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        return find("COUNT(DISTINCT h.ip)", start, end, uriIds);
+    }
+
+    private List<HitCount> find(String count, LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+        String uriFilter = "";
+        if (uriIds != null) {
+            // Список передается одним параметром-массивом: число параметров запроса в PostgreSQL ограничено 32767
+            params.addValue("uriIds", uriIds.toArray(new Integer[0]));
+            uriFilter = " AND h.uri_id = ANY(:uriIds)";
+        }
+        return namedParameterJdbcTemplate.query("SELECT h.app_id, h.uri_id, " + count + " AS hits FROM hits h " +
+                "WHERE h.time_stamp BETWEEN :start AND :end" + uriFilter +
+                " GROUP BY h.app_id, h.uri_id " +
+                "ORDER BY hits DESC", params, HIT_COUNT_MAPPER);
+    }
+}
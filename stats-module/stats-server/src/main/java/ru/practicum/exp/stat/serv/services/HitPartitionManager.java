@@ -0,0 +1,175 @@
+package ru.practicum.exp.stat.serv.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.exp.stat.serv.repositories.HitPartitionRepository;
+import ru.practicum.exp.stat.serv.repositories.HitRollupRepository;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Класс HitPartitionManager для подготовки и обслуживания таблицы hits.
+ * При запуске переводит таблицу на словари app и uri и в секционированную по time_stamp, заполняет агрегаты,
+ * заранее создает секции на premake интервалов вперед и удаляет (или отсоединяет для архивирования)
+ * секции старше срока хранения. Агрегаты и оценки уникальных ip при удалении секций сохраняются.
+ */
+@Slf4j
+@Component
+public class HitPartitionManager {
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /**
+     * Действие с секциями старше срока хранения
+     */
+    public enum ExpiredAction {
+        DROP, DETACH
+    }
+
+    private final HitPartitionRepository hitPartitionRepository;
+    private final HitRollupRepository hitRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final int intervalMonths;
+    private final int premake;
+    private final int retentionMonths;
+    private final ExpiredAction expiredAction;
+    private volatile boolean active;
+    private volatile LocalDateTime retainedFrom;
+
+    public HitPartitionManager(HitPartitionRepository hitPartitionRepository,
+                               HitRollupRepository hitRollupRepository,
+                               TransactionTemplate transactionTemplate,
+                               DataSource dataSource,
+                               @Value("${stats.partition.enabled:true}") boolean enabled,
+                               @Value("${stats.partition.interval-months:1}") int intervalMonths,
+                               @Value("${stats.partition.premake:3}") int premake,
+                               @Value("${stats.partition.retention-months:0}") int retentionMonths,
+                               @Value("${stats.partition.expired-action:DROP}") ExpiredAction expiredAction) {
+        this.hitPartitionRepository = hitPartitionRepository;
+        this.hitRollupRepository = hitRollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.intervalMonths = intervalMonths;
+        this.premake = premake;
+        this.retentionMonths = retentionMonths;
+        this.expiredAction = expiredAction;
+    }
+
+    /**
+     * Метод подготовки таблицы hits и секций, выполняется до начала приема запросов
+     */
+    @PostConstruct
+    public void init() throws MetaDataAccessException {
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        if (!"PostgreSQL".equals(product)) {
+            log.info("Секционирование hits не поддерживается для {}", product);
+            return;
+        }
+        // Состояние таблицы проверяется под блокировкой: второй экземпляр дождется перевода и увидит его результат
+        transactionTemplate.executeWithoutResult(status -> {
+            hitPartitionRepository.lockMigration();
+            boolean partitioned = hitPartitionRepository.isPartitioned();
+            if ((partitioned || !enabled) && hitPartitionRepository.hasLegacyColumns()) {
+                int removed = hitPartitionRepository.convertLegacyColumns();
+                log.info("Таблица hits переведена на словари app и uri, удалено {} hit'ов с некорректным ip", removed);
+            }
+            if (enabled && !partitioned) {
+                int moved = hitPartitionRepository.migrateToPartitioned((min, max) -> createPartitions(min, max));
+                log.info("Таблица hits переведена в секционированную, перенесено {} hit'ов", moved);
+            }
+        });
+        hitRollupRepository.fillIfEmpty();
+        active = enabled;
+        maintain();
+    }
+
+    /**
+     * Метод создания будущих секций и обработки устаревших
+     */
+    @Scheduled(cron = "${stats.partition.cron:0 0 3 * * *}")
+    public void maintain() {
+        if (!active) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        createPartitions(now, periodStart(now).plusMonths((long) intervalMonths * premake));
+        if (retentionMonths > 0) {
+            dropExpired(periodStart(now).minusMonths(retentionMonths));
+        }
+    }
+
+    /**
+     * Метод создания секций, покрывающих диапазон дат
+     */
+    private void createPartitions(LocalDateTime min, LocalDateTime max) {
+        Set<String> existing = new HashSet<>(hitPartitionRepository.findPartitionNames());
+        for (LocalDateTime from = periodStart(min); !from.isAfter(max); from = from.plusMonths(intervalMonths)) {
+            String name = HitPartitionRepository.PARTITION_PREFIX + from.format(NAME_FORMAT);
+            if (existing.contains(name)) {
+                continue;
+            }
+            try {
+                hitPartitionRepository.createPartition(name, from, from.plusMonths(intervalMonths));
+                log.info("Создана секция {}", name);
+            } catch (DataAccessException e) {
+                // Например, диапазон пересекается с существующей секцией или строками секции по умолчанию
+                log.warn("Не удалось создать секцию {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Метод получения начала периода, hit'ы до которого удалены или отсоединены по сроку хранения
+     *
+     * @return Дата и время начала хранимых hit'ов или null, если секции не удалялись
+     */
+    public LocalDateTime getRetainedFrom() {
+        return retainedFrom;
+    }
+
+    private void dropExpired(LocalDateTime cutoff) {
+        for (String name : hitPartitionRepository.findPartitionNames()) {
+            LocalDateTime from = YearMonth.parse(name.substring(HitPartitionRepository.PARTITION_PREFIX.length()),
+                    NAME_FORMAT).atDay(1).atStartOfDay();
+            LocalDateTime to = from.plusMonths(intervalMonths);
+            if (to.isAfter(cutoff)) {
+                continue;
+            }
+            if (retainedFrom == null || to.isAfter(retainedFrom)) {
+                retainedFrom = to;
+            }
+            if (expiredAction == ExpiredAction.DETACH) {
+                hitPartitionRepository.detachPartition(name);
+                log.info("Секция {} отсоединена для архивирования", name);
+            } else {
+                hitPartitionRepository.dropPartition(name);
+                log.info("Секция {} удалена по сроку хранения", name);
+            }
+        }
+    }
+
+    /**
+     * Метод получения начала интервала секционирования, в который попадает момент времени
+     */
+    private LocalDateTime periodStart(LocalDateTime time) {
+        int monthIndex = time.getYear() * 12 + time.getMonthValue() - 1;
+        monthIndex -= monthIndex % intervalMonths;
+        return LocalDate.of(monthIndex / 12, monthIndex % 12 + 1, 1).atStartOfDay();
+    }
+}
@@ -0,0 +1,83 @@
+package ru.practicum.exp.stat.serv.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.exp.stat.dto.ViewStatsDto;
+import ru.practicum.exp.stat.serv.models.Hit;
+import ru.practicum.exp.stat.serv.repositories.HitRollupRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Класс HitRollupService для поддержки таблиц предагрегированных hit'ов
+ */
+@Service
+@RequiredArgsConstructor
+public class HitRollupService {
+    private final HitRollupRepository hitRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${stats.rollup.enabled:true}")
+    private boolean enabled;
+    @Value("${stats.rollup.compact-batch-size:10000}")
+    private int compactBatchSize;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Метод учета новых hit'ов в агрегатах, вызывается в транзакции записи hit'ов.
+     * Количества только дописываются, поэтому параллельные записи одного uri не ждут друг друга.
+     *
+     * @param hits Список объектов Hit
+     */
+    public void increment(List<Hit> hits) {
+        if (enabled) {
+            hitRollupRepository.append(hits);
+        }
+    }
+
+    /**
+     * Метод переноса добавленных количеств в агрегаты пакетами по compact-batch-size строк
+     */
+    @Scheduled(fixedDelayString = "${stats.rollup.compact-interval-ms:10000}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        int compacted;
+        do {
+            compacted = transactionTemplate.execute(status -> hitRollupRepository.compact(compactBatchSize));
+        } while (compacted == compactBatchSize);
+    }
+
+    /**
+     * Метод получения количества hit'ов (без учета уникальности ip) за период по агрегатам
+     *
+     * @param start Дата и время начала диапазона (включительно)
+     * @param end   Дата и время конца диапазона (включительно)
+     * @param uris  Список uri для которых нужно выгрузить статистику или null для всех uri
+     * @return Сформированный список статистики по посещениям
+     */
+    public List<ViewStatsDto> findByDate(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        // Время hit'а хранится с точностью до секунды, поэтому [start, end] совпадает с [start, end + 1s)
+        return hitRollupRepository.findByDate(start, end.plusSeconds(1), uris);
+    }
+
+    /**
+     * Метод построчной выдачи количества hit'ов (без учета уникальности ip) за период по агрегатам
+     *
+     * @param start    Дата и время начала диапазона (включительно)
+     * @param end      Дата и время конца диапазона (включительно)
+     * @param uris     Список uri для которых нужно выгрузить статистику или null для всех uri
+     * @param consumer Получатель строк статистики
+     */
+    public void findByDate(LocalDateTime start, LocalDateTime end, List<String> uris, Consumer<ViewStatsDto> consumer) {
+        hitRollupRepository.findByDate(start, end.plusSeconds(1), uris, consumer);
+    }
+}
@@ -1,7 +1,10 @@
 package ru.practicum.exp.stat.serv.services;
 
+import ru.practicum.exp.stat.dto.HitBatchResultDto;
 import ru.practicum.exp.stat.dto.HitDto;
 
+import java.util.List;
+
 /**
  * Интерфейс HitService для обработки логики запросов из HitController
  */
@@ -13,4 +16,12 @@ public interface HitService {
      * @param hitDto Объект запроса hit
      */
     void create(HitDto hitDto);
-}
\ No newline at end of file
+
+    /**
+     * Метод пакетного создания запросов Hit
+     *
+     * @param hitDtos Список объектов запроса hit
+     * @return Количество сохраненных hit'ов и список отклоненных с причиной
+     */
+    HitBatchResultDto createBatch(List<HitDto> hitDtos);
+}
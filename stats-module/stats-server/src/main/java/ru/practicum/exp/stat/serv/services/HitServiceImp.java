@@ -2,12 +2,21 @@ package ru.practicum.exp.stat.serv.services;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.exp.stat.dto.HitBatchResultDto;
 import ru.practicum.exp.stat.dto.HitDto;
+import ru.practicum.exp.stat.dto.HitRejectionDto;
+import ru.practicum.exp.stat.serv.exceptions.ValidationDateException;
+import ru.practicum.exp.stat.serv.exceptions.ValidationHitException;
+import ru.practicum.exp.stat.serv.exceptions.ValidationIpException;
 import ru.practicum.exp.stat.serv.mappers.HitMapper;
 import ru.practicum.exp.stat.serv.models.Hit;
-import ru.practicum.exp.stat.serv.repositories.HitRepository;
+import ru.practicum.exp.stat.serv.repositories.HitJdbcRepository;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Класс HitServiceImp для отработки логики запросов и логирования
@@ -17,7 +26,15 @@ import ru.practicum.exp.stat.serv.repositories.HitRepository;
 @RequiredArgsConstructor
 public class HitServiceImp implements HitService {
 
-    private final HitRepository hitRepository;
+    private final HitJdbcRepository hitJdbcRepository;
+    private final HitWriteBehindBuffer hitWriteBehindBuffer;
+    private final HitRollupService hitRollupService;
+    private final HitSketchService hitSketchService;
+    private final HotViewCounter hotViewCounter;
+    private final TopUriCounter topUriCounter;
+    private final StatsResultCache statsResultCache;
+    @Value("${stats.hit.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
 
     @Override
     @Transactional
@@ -26,13 +43,90 @@ public class HitServiceImp implements HitService {
             log.warn("HitDto is null");
             return; // Или выбросьте исключение, если это критично
         }
+        String reason = validate(hitDto);
+        if (reason != null) {
+            throw new ValidationHitException(reason);
+        }
         Hit hit = HitMapper.toHit(hitDto);
         log.info("Информация о запросе {}", hitDto.getUri());
-        try {
-            hitRepository.save(hit);
-        } catch (Exception e) {
-            log.error("Ошибка при сохранении хита: {}", e.getMessage());
-            // Можно выбросить пользовательское исключение или обработать ошибку по-другому
+        if (hitWriteBehindBuffer.isEnabled()) {
+            hitWriteBehindBuffer.offer(hit);
+            return;
+        }
+        // Ошибка записи не перехватывается: транзакция откатывается целиком, клиент получает ошибку и может повторить
+        List<Hit> hits = List.of(hit);
+        hitJdbcRepository.saveAll(hits, jdbcBatchSize);
+        hitRollupService.increment(hits);
+        hitSketchService.add(hits);
+        hotViewCounter.record(hits);
+        topUriCounter.record(hits);
+        statsResultCache.record(hits);
+    }
+
+    @Override
+    @Transactional
+    public HitBatchResultDto createBatch(List<HitDto> hitDtos) {
+        List<Hit> hits = new ArrayList<>();
+        List<HitRejectionDto> rejected = new ArrayList<>();
+        if (hitDtos != null) {
+            for (int i = 0; i < hitDtos.size(); i++) {
+                HitDto hitDto = hitDtos.get(i);
+                String reason = validate(hitDto);
+                if (reason == null) {
+                    try {
+                        hits.add(HitMapper.toHit(hitDto));
+                        continue;
+                    } catch (ValidationDateException | ValidationIpException e) {
+                        reason = e.getMessage();
+                    }
+                }
+                rejected.add(new HitRejectionDto(i, reason));
+            }
+        }
+        if (!hits.isEmpty()) {
+            hitJdbcRepository.saveAll(hits, jdbcBatchSize);
+            hitRollupService.increment(hits);
+            hitSketchService.add(hits);
+            hotViewCounter.record(hits);
+            topUriCounter.record(hits);
+            statsResultCache.record(hits);
         }
+        log.info("Пакетная запись hit'ов: сохранено {}, отклонено {}", hits.size(), rejected.size());
+        return HitBatchResultDto.builder()
+                .accepted(hits.size())
+                .rejected(rejected)
+                .build();
+    }
+
+    /**
+     * Метод проверки обязательных полей hit'а и их длины по размеру столбцов словарей
+     *
+     * @param hitDto Объект запроса hit
+     * @return Причина отказа или null, если hit корректен
+     */
+    private String validate(HitDto hitDto) {
+        if (hitDto == null) {
+            return "Hit не задан";
+        }
+        if (isBlank(hitDto.getApp())) {
+            return "Поле \"app\" должно быть заполнено";
+        }
+        if (isBlank(hitDto.getUri())) {
+            return "Поле \"uri\" должно быть заполнено";
+        }
+        if (isBlank(hitDto.getIp())) {
+            return "Поле \"ip\" должно быть заполнено";
+        }
+        if (hitDto.getApp().length() > HitDto.MAX_APP_LENGTH) {
+            return "Длина поля \"app\" не должна превышать " + HitDto.MAX_APP_LENGTH;
+        }
+        if (hitDto.getUri().length() > HitDto.MAX_URI_LENGTH) {
+            return "Длина поля \"uri\" не должна превышать " + HitDto.MAX_URI_LENGTH;
+        }
+        return null;
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,122 @@
+package ru.practicum.exp.stat.serv.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.exp.stat.dto.ViewStatsDto;
+import ru.practicum.exp.stat.serv.models.AppUri;
+import ru.practicum.exp.stat.serv.models.Hit;
+import ru.practicum.exp.stat.serv.models.enums.RollupGranularity;
+import ru.practicum.exp.stat.serv.repositories.HitSketchRepository;
+import ru.practicum.exp.stat.serv.util.HyperLogLog;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Класс HitSketchService для приближенного подсчета уникальных ip по суточным HyperLogLog-оценкам
+ */
+@Service
+@RequiredArgsConstructor
+public class HitSketchService {
+    private static final RollupGranularity BUCKET = RollupGranularity.DAY;
+
+    private final HitSketchRepository hitSketchRepository;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${stats.sketch.enabled:true}")
+    private boolean enabled;
+    @Value("${stats.sketch.compact-batch-size:10000}")
+    private int compactBatchSize;
+    private volatile LocalDateTime trackedFrom;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Метод учета ip новых hit'ов в суточных оценках, вызывается в транзакции записи hit'ов.
+     * Оценки только дописываются, поэтому параллельные записи одного uri не ждут друг друга.
+     *
+     * @param hits Список объектов Hit
+     */
+    public void add(List<Hit> hits) {
+        if (!enabled || hits.isEmpty()) {
+            return;
+        }
+        LocalDateTime from = getTrackedFrom();
+        Map<LocalDateTime, Map<AppUri, HyperLogLog>> additions = new HashMap<>();
+        for (Hit hit : hits) {
+            LocalDateTime bucket = BUCKET.floor(hit.getTimestamp());
+            if (bucket.isBefore(from)) {
+                continue;
+            }
+            additions.computeIfAbsent(bucket, b -> new HashMap<>())
+                    .computeIfAbsent(new AppUri(hit.getApp(), hit.getUri()), k -> new HyperLogLog())
+                    .add(hit.getIp());
+        }
+        if (!additions.isEmpty()) {
+            hitSketchRepository.append(additions);
+        }
+    }
+
+    /**
+     * Метод переноса добавленных оценок в суточные оценки пакетами по compact-batch-size строк
+     */
+    @Scheduled(fixedDelayString = "${stats.sketch.compact-interval-ms:10000}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        int compacted;
+        do {
+            compacted = transactionTemplate.execute(status -> hitSketchRepository.compact(compactBatchSize));
+        } while (compacted == compactBatchSize);
+    }
+
+    /**
+     * Метод получения приближенного количества уникальных ip за период.
+     * Целые сутки берутся из оценок, неполные сутки на краях периода - из таблицы hits.
+     *
+     * @param start Дата и время начала диапазона (включительно)
+     * @param end   Дата и время конца диапазона (включительно)
+     * @param uris  Список uri для которых нужно выгрузить статистику или null для всех uri
+     * @return Сформированный список статистики по посещениям
+     */
+    public List<ViewStatsDto> findUniqueByDate(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        // Время hit'а хранится с точностью до секунды, поэтому [start, end] совпадает с [start, end + 1s)
+        LocalDateTime endExclusive = end.plusSeconds(1);
+        LocalDateTime from = BUCKET.ceil(start);
+        if (from.isBefore(getTrackedFrom())) {
+            from = getTrackedFrom();
+        }
+        LocalDateTime to = BUCKET.floor(endExclusive);
+        Map<AppUri, HyperLogLog> sketches = new HashMap<>();
+        if (from.isBefore(to)) {
+            hitSketchRepository.mergeSketches(from, to, uris, sketches);
+            hitSketchRepository.mergeIps(start, from, uris, sketches);
+            hitSketchRepository.mergeIps(to, endExclusive, uris, sketches);
+        } else {
+            hitSketchRepository.mergeIps(start, endExclusive, uris, sketches);
+        }
+        return sketches.entrySet().stream()
+                .map(e -> new ViewStatsDto(e.getKey().getApp(), e.getKey().getUri(), e.getValue().estimate()))
+                .sorted(Comparator.comparing(ViewStatsDto::getHits).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Метод получения начала первых суток, полностью покрытых оценками
+     */
+    private LocalDateTime getTrackedFrom() {
+        if (trackedFrom == null) {
+            trackedFrom = BUCKET.ceil(hitSketchRepository.findTrackedSince());
+        }
+        return trackedFrom;
+    }
+}
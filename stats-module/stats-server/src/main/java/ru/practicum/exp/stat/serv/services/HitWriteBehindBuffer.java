@@ -0,0 +1,227 @@
+package ru.practicum.exp.stat.serv.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.exp.stat.serv.exceptions.HitBufferOverflowException;
+import ru.practicum.exp.stat.serv.models.Hit;
+import ru.practicum.exp.stat.serv.repositories.HitJdbcRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Класс HitWriteBehindBuffer для асинхронной записи hit'ов в БД.
+ * Hit'ы складываются в ограниченную неблокирующую очередь, фоновый поток
+ * сбрасывает их пачками при накоплении batch-size или по истечении flush-interval.
+ */
+@Slf4j
+@Component
+public class HitWriteBehindBuffer {
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * Поведение при заполненной очереди
+     */
+    public enum OverflowPolicy {
+        BLOCK, DROP_OLDEST, REJECT
+    }
+
+    private final ConcurrentLinkedQueue<Hit> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final HitJdbcRepository hitJdbcRepository;
+    private final HitRollupService hitRollupService;
+    private final HitSketchService hitSketchService;
+    private final HotViewCounter hotViewCounter;
+    private final TopUriCounter topUriCounter;
+    private final StatsResultCache statsResultCache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final Counter droppedCounter;
+    private final Counter rejectedCounter;
+    private final Timer flushTimer;
+    private volatile boolean running;
+    private Thread flusher;
+
+    public HitWriteBehindBuffer(HitJdbcRepository hitJdbcRepository,
+                                HitRollupService hitRollupService,
+                                HitSketchService hitSketchService,
+                                HotViewCounter hotViewCounter,
+                                TopUriCounter topUriCounter,
+                                StatsResultCache statsResultCache,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${stats.hit.buffer.enabled:false}") boolean enabled,
+                                @Value("${stats.hit.buffer.capacity:10000}") int capacity,
+                                @Value("${stats.hit.buffer.batch-size:500}") int batchSize,
+                                @Value("${stats.hit.buffer.flush-interval-ms:1000}") long flushIntervalMillis,
+                                @Value("${stats.hit.buffer.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy) {
+        this.hitJdbcRepository = hitJdbcRepository;
+        this.hitRollupService = hitRollupService;
+        this.hitSketchService = hitSketchService;
+        this.hotViewCounter = hotViewCounter;
+        this.topUriCounter = topUriCounter;
+        this.statsResultCache = statsResultCache;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.overflowPolicy = overflowPolicy;
+        Gauge.builder("stats.hit.buffer.depth", depth, AtomicInteger::get)
+                .description("Количество hit'ов, ожидающих записи в БД")
+                .register(meterRegistry);
+        Gauge.builder("stats.hit.buffer.capacity", () -> capacity)
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("stats.hit.buffer.dropped")
+                .description("Количество hit'ов, потерянных при переполнении очереди или ошибке записи")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("stats.hit.buffer.rejected")
+                .description("Количество hit'ов, отклоненных с ответом 503")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("stats.hit.buffer.flush")
+                .description("Время записи одной пачки hit'ов в БД")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlusher, "hit-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Буфер записи hit'ов запущен: capacity={}, batchSize={}, policy={}",
+                capacity, batchSize, overflowPolicy);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join(SHUTDOWN_TIMEOUT_MILLIS);
+        if (depth.get() > 0) {
+            log.warn("Буфер hit'ов остановлен, не записано {}", depth.get());
+        }
+    }
+
+    /**
+     * Метод проверки, включена ли асинхронная запись
+     *
+     * @return true, если hit'ы нужно передавать в буфер
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Метод постановки hit'а в очередь на запись
+     *
+     * @param hit Объект Hit
+     * @throws HitBufferOverflowException если очередь заполнена и политика переполнения REJECT
+     */
+    public void offer(Hit hit) {
+        while (!tryReserve()) {
+            switch (overflowPolicy) {
+                case DROP_OLDEST:
+                    if (queue.poll() != null) {
+                        depth.decrementAndGet();
+                        droppedCounter.increment();
+                    }
+                    break;
+                case REJECT:
+                    rejectedCounter.increment();
+                    throw new HitBufferOverflowException("Буфер записи статистики переполнен");
+                default:
+                    if (!running || Thread.currentThread().isInterrupted()) {
+                        rejectedCounter.increment();
+                        throw new HitBufferOverflowException("Буфер записи статистики недоступен");
+                    }
+                    LockSupport.unpark(flusher);
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+            }
+        }
+        queue.offer(hit);
+        if (depth.get() >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    private boolean tryReserve() {
+        int current;
+        do {
+            current = depth.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!depth.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void runFlusher() {
+        while (running) {
+            if (depth.get() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            drain();
+        }
+        drain();
+    }
+
+    /**
+     * Метод записи всех накопленных hit'ов пачками по batch-size
+     */
+    private void drain() {
+        int flushed;
+        do {
+            flushed = flushBatch();
+        } while (flushed == batchSize);
+    }
+
+    private int flushBatch() {
+        List<Hit> batch = new ArrayList<>(batchSize);
+        Hit hit;
+        while (batch.size() < batchSize && (hit = queue.poll()) != null) {
+            batch.add(hit);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        depth.addAndGet(-batch.size());
+        try {
+            flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                hitJdbcRepository.saveAll(batch, batchSize);
+                hitRollupService.increment(batch);
+                hitSketchService.add(batch);
+                hotViewCounter.record(batch);
+                topUriCounter.record(batch);
+                statsResultCache.record(batch);
+            }));
+        } catch (Exception e) {
+            droppedCounter.increment(batch.size());
+            log.error("Ошибка при записи пачки hit'ов ({} шт.): {}", batch.size(), e.getMessage());
+        }
+        return batch.size();
+    }
+}
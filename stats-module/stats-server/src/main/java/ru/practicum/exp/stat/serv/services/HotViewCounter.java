@@ -0,0 +1,243 @@
+package ru.practicum.exp.stat.serv.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.exp.stat.dto.ViewStatsDto;
+import ru.practicum.exp.stat.serv.models.Hit;
+import ru.practicum.exp.stat.serv.repositories.HitJdbcRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Класс HotViewCounter для подсчета посещений популярных uri в памяти.
+ * Счетчики заполняются из БД при запуске и обновляются после фиксации каждой записи hit'ов.
+ * Запрос обслуживается из памяти, если период покрывает всю историю hit'ов по запрошенным uri,
+ * иначе вызывающая сторона обращается к БД. Множество ip ведется до max-ips адресов на приложение и uri,
+ * после этого уникальные посещения по ним считаются в БД. Uri, часть hit'ов которых удалена вместе
+ * с секциями по сроку хранения, перестают отслеживаться.
+ * Счетчики ведутся в памяти одного экземпляра сервиса, при нескольких экземплярах механизм нужно отключить.
+ */
+@Slf4j
+@Component
+@DependsOn("hitPartitionManager")
+public class HotViewCounter {
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Entry>> counters = new ConcurrentHashMap<>();
+    private final Set<String> expiredUris = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger trackedUris = new AtomicInteger();
+    private final HitJdbcRepository hitJdbcRepository;
+    private final HitPartitionManager hitPartitionManager;
+    private final boolean enabled;
+    private final List<String> uriPrefixes;
+    private final int maxUris;
+    private final int maxIps;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private volatile boolean complete = true;
+
+    public HotViewCounter(HitJdbcRepository hitJdbcRepository,
+                          HitPartitionManager hitPartitionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${stats.hot.enabled:true}") boolean enabled,
+                          @Value("${stats.hot.uri-prefixes:/events/}") List<String> uriPrefixes,
+                          @Value("${stats.hot.max-uris:100000}") int maxUris,
+                          @Value("${stats.hot.max-ips:1000}") int maxIps) {
+        this.hitJdbcRepository = hitJdbcRepository;
+        this.hitPartitionManager = hitPartitionManager;
+        this.enabled = enabled;
+        this.uriPrefixes = uriPrefixes;
+        this.maxUris = maxUris;
+        this.maxIps = maxIps;
+        this.hitCounter = Counter.builder("stats.hot.requests").tag("result", "hit")
+                .description("Запросы статистики, обслуженные из памяти")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("stats.hot.requests").tag("result", "miss")
+                .description("Запросы статистики, переданные в БД")
+                .register(meterRegistry);
+        Gauge.builder("stats.hot.uris", trackedUris, AtomicInteger::get)
+                .description("Количество uri, отслеживаемых в памяти")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Метод заполнения счетчиков из БД, выполняется до начала приема запросов
+     */
+    @PostConstruct
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        for (String prefix : uriPrefixes) {
+            hitJdbcRepository.findIpStatsByUriPrefix(prefix, (app, uri, ip, hits, first, last) -> {
+                Entry entry = entry(app, uri);
+                if (entry != null) {
+                    entry.add(ip, hits, first, last, maxIps);
+                }
+            });
+        }
+        log.info("Счетчики посещений в памяти заполнены: {} uri", trackedUris.get());
+    }
+
+    /**
+     * Метод учета новых hit'ов. При активной транзакции счетчики обновляются после ее фиксации.
+     *
+     * @param hits Список объектов Hit
+     */
+    public void record(List<Hit> hits) {
+        if (!enabled || hits.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(hits);
+                }
+            });
+        } else {
+            apply(hits);
+        }
+    }
+
+    /**
+     * Метод получения статистики из памяти
+     *
+     * @param start  Дата и время начала диапазона (включительно)
+     * @param end    Дата и время конца диапазона (включительно)
+     * @param uris   Список uri
+     * @param unique Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @return Сформированный список статистики или null, если запрос нужно выполнить по БД
+     */
+    public List<ViewStatsDto> find(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        if (!enabled || uris == null) {
+            return null;
+        }
+        long from = toEpochSecond(start);
+        long to = toEpochSecond(end);
+        LocalDateTime retainedFrom = hitPartitionManager.getRetainedFrom();
+        long retained = retainedFrom == null ? Long.MIN_VALUE : toEpochSecond(retainedFrom);
+        List<ViewStatsDto> result = new ArrayList<>();
+        // Повторяющиеся uri дали бы повторяющиеся строки, в БД они схлопываются условием IN
+        for (String uri : new LinkedHashSet<>(uris)) {
+            Map<String, Entry> byApp = isTracked(uri) && !expiredUris.contains(uri) ? counters.get(uri) : null;
+            if (byApp == null) {
+                if (isTracked(uri) && complete && !expiredUris.contains(uri)) {
+                    continue;
+                }
+                missCounter.increment();
+                return null;
+            }
+            for (Map.Entry<String, Entry> e : byApp.entrySet()) {
+                Entry entry = e.getValue();
+                if (entry.first.get() < retained) {
+                    expire(uri);
+                    missCounter.increment();
+                    return null;
+                }
+                Set<String> ips = entry.ips;
+                if (entry.first.get() < from || entry.last.get() > to || (unique && ips == null)) {
+                    missCounter.increment();
+                    return null;
+                }
+                result.add(new ViewStatsDto(e.getKey(), uri, unique ? (long) ips.size() : entry.total.sum()));
+            }
+        }
+        hitCounter.increment();
+        result.sort(Comparator.comparing(ViewStatsDto::getHits).reversed());
+        return result;
+    }
+
+    private void apply(List<Hit> hits) {
+        for (Hit hit : hits) {
+            Entry entry = entry(hit.getApp(), hit.getUri());
+            if (entry != null) {
+                long time = toEpochSecond(hit.getTimestamp());
+                entry.add(hit.getIp(), 1, time, time, maxIps);
+            }
+        }
+    }
+
+    /**
+     * Метод прекращения учета uri, часть hit'ов которого удалена по сроку хранения:
+     * счетчики не уменьшить на удаленные hit'ы, поэтому запросы по нему выполняются в БД
+     */
+    private void expire(String uri) {
+        expiredUris.add(uri);
+        if (counters.remove(uri) != null) {
+            trackedUris.decrementAndGet();
+        }
+    }
+
+    private Entry entry(String app, String uri) {
+        if (!isTracked(uri) || expiredUris.contains(uri)) {
+            return null;
+        }
+        Map<String, Entry> byApp = counters.get(uri);
+        if (byApp == null) {
+            if (trackedUris.get() >= maxUris) {
+                complete = false;
+                return null;
+            }
+            byApp = counters.computeIfAbsent(uri, u -> {
+                trackedUris.incrementAndGet();
+                return new ConcurrentHashMap<>();
+            });
+        }
+        return byApp.computeIfAbsent(app, a -> new Entry());
+    }
+
+    private boolean isTracked(String uri) {
+        for (String prefix : uriPrefixes) {
+            if (uri.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Счетчики одного приложения и uri
+     */
+    private static class Entry {
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator first = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator last = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        // null, если адресов больше лимита
+        private volatile Set<String> ips = ConcurrentHashMap.newKeySet();
+
+        private void add(String ip, long hits, long firstTime, long lastTime, int maxIps) {
+            total.add(hits);
+            Set<String> current = ips;
+            if (current != null) {
+                current.add(ip);
+                if (current.size() > maxIps) {
+                    ips = null;
+                }
+            }
+            first.accumulate(firstTime);
+            last.accumulate(lastTime);
+        }
+    }
+}
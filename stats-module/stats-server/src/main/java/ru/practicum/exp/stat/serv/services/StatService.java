@@ -1,8 +1,12 @@
 package ru.practicum.exp.stat.serv.services;
 
+import ru.practicum.exp.stat.dto.StatsQueryDto;
+import ru.practicum.exp.stat.dto.TopViewStatsDto;
+import ru.practicum.exp.stat.dto.ViewStatsBucketDto;
 import ru.practicum.exp.stat.dto.ViewStatsDto;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Интерфейс StatService для обработки логики запросов из StatsController
@@ -16,7 +20,60 @@ public interface StatService {
      * @param end    Дата и время конца диапазона за который нужно выгрузить статистику
      * @param uris   Список uri для которых нужно выгрузить статистику
      * @param unique Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @param approximate Допускается ли приближенный подсчет уникальных посещений
      * @return Сформированный список статистики по посещениям
      */
-    List<ViewStatsDto> get(String start, String end, List<String> uris, boolean unique);
-}
\ No newline at end of file
+    List<ViewStatsDto> get(String start, String end, List<String> uris, boolean unique, boolean approximate);
+
+    /**
+     * Метод построчной выдачи статистики по посещениям без сборки всего результата в памяти
+     *
+     * @param start       Дата и время начала диапазона за который нужно выгрузить статистику
+     * @param end         Дата и время конца диапазона за который нужно выгрузить статистику
+     * @param uris        Список uri для которых нужно выгрузить статистику
+     * @param unique      Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @param approximate Допускается ли приближенный подсчет уникальных посещений
+     * @param consumer    Получатель строк статистики в порядке убывания количества посещений
+     */
+    void stream(String start, String end, List<String> uris, boolean unique, boolean approximate,
+                Consumer<ViewStatsDto> consumer);
+
+    /**
+     * Метод получения самых посещаемых uri за период
+     *
+     * @param start Дата и время начала диапазона
+     * @param end   Дата и время конца диапазона
+     * @param n     Количество uri
+     * @return Список статистики в порядке убывания количества посещений с границей ошибки оценки
+     */
+    List<TopViewStatsDto> getTop(String start, String end, int n);
+
+    /**
+     * Метод получения временного ряда количества посещений по каждому uri
+     *
+     * @param start       Дата и время начала диапазона
+     * @param end         Дата и время конца диапазона
+     * @param uris        Список uri
+     * @param granularity Гранулярность интервалов: MINUTE, HOUR или DAY
+     * @param unique      Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @return Список количества посещений по приложению, uri и началу интервала, интервалы без посещений пропускаются
+     */
+    List<ViewStatsBucketDto> getTimeSeries(String start, String end, List<String> uris, String granularity,
+                                           boolean unique);
+
+    /**
+     * Метод получения статистики по посещениям по запросу, переданному в теле
+     *
+     * @param query Параметры запроса, uri задаются списком и/или префиксом с идентификаторами
+     * @return Сформированный список статистики по посещениям
+     */
+    List<ViewStatsDto> query(StatsQueryDto query);
+
+    /**
+     * Метод получения списка uri запроса из списка uri и префикса с идентификаторами
+     *
+     * @param query Параметры запроса
+     * @return Список uri, null для всех uri, пустой список - запрос без uri
+     */
+    List<String> resolveUris(StatsQueryDto query);
+}
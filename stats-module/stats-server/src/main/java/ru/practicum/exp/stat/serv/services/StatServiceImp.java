@@ -2,16 +2,30 @@ package ru.practicum.exp.stat.serv.services;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.exp.stat.dto.StatsQueryDto;
+import ru.practicum.exp.stat.dto.TopViewStatsDto;
+import ru.practicum.exp.stat.dto.ViewStatsBucketDto;
 import ru.practicum.exp.stat.dto.ViewStatsDto;
-import ru.practicum.exp.stat.serv.exceptions.ValidationDateException;
+import ru.practicum.exp.stat.serv.exceptions.ValidationQueryException;
+import ru.practicum.exp.stat.serv.models.AppUri;
+import ru.practicum.exp.stat.serv.models.HitCount;
+import ru.practicum.exp.stat.serv.models.enums.RollupGranularity;
+import ru.practicum.exp.stat.serv.repositories.HitDictionaryRepository;
+import ru.practicum.exp.stat.serv.repositories.HitJdbcRepository;
+import ru.practicum.exp.stat.serv.repositories.HitRollupRepository;
 import ru.practicum.exp.stat.serv.repositories.StatsRepository;
 import ru.practicum.exp.stat.serv.util.DateFormatter;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Класс StatServiceImp для отработки логики запросов и логирования
@@ -22,22 +36,212 @@ import java.util.List;
 public class StatServiceImp implements StatService {
     public static final String LOG_TEXT = "Получение информации о запросе start:{}, end {}";
     private final StatsRepository statsRepository;
+    private final HitDictionaryRepository hitDictionaryRepository;
+    private final HitJdbcRepository hitJdbcRepository;
+    private final HitRollupService hitRollupService;
+    private final HitSketchService hitSketchService;
+    private final HotViewCounter hotViewCounter;
+    private final TopUriCounter topUriCounter;
+    private final StatsResultCache statsResultCache;
+    private final HitRollupRepository hitRollupRepository;
+    @Value("${stats.timeseries.max-buckets:10000}")
+    private long maxBuckets;
 
     @Override
     @Transactional(readOnly = true)
-    public List<ViewStatsDto> get(String start, String end, List<String> uris, boolean unique) {
+    public List<ViewStatsDto> get(String start, String end, List<String> uris, boolean unique, boolean approximate) {
         LocalDateTime newStart = DateFormatter.formatDate(start);
         LocalDateTime newEnd = DateFormatter.formatDate(end);
-        if (newEnd.isBefore(newStart) || newStart.isAfter(newEnd)) {
-            throw new ValidationDateException("Неверно заданы даты для поиска");
+        DateFormatter.checkRange(newStart, newEnd);
+        log.info(LOG_TEXT, start, end);
+
+        List<String> urisFilter = uris == null || uris.isEmpty() ? null : uris;
+        List<ViewStatsDto> hot = hotViewCounter.find(newStart, newEnd, urisFilter, unique);
+        if (hot != null) {
+            return hot;
+        }
+        StatsResultCache.Key key = statsResultCache.key(newStart, newEnd, urisFilter, unique, approximate);
+        List<ViewStatsDto> cached = statsResultCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = statsResultCache.generation();
+        List<ViewStatsDto> result = findInDb(newStart, newEnd, urisFilter, unique, approximate);
+        statsResultCache.put(key, result, generation);
+        return result;
+    }
+
+    /**
+     * Метод получения статистики по агрегатам, оценкам или таблице hits
+     *
+     * @param start       Дата и время начала диапазона
+     * @param end         Дата и время конца диапазона
+     * @param uris        Список uri или null для всех uri
+     * @param unique      Нужно ли учитывать только уникальные посещения (только с уникальным ip)
+     * @param approximate Допускается ли приближенный подсчет уникальных посещений
+     * @return Сформированный список статистики по посещениям
+     */
+    private List<ViewStatsDto> findInDb(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                        boolean approximate) {
+        if (!unique && hitRollupService.isEnabled()) {
+            return hitRollupService.findByDate(start, end, uris);
+        }
+        if (unique && approximate && hitSketchService.isEnabled()) {
+            return hitSketchService.findUniqueByDate(start, end, uris);
         }
+        List<HitCount> counts;
+        if (uris == null) {
+            counts = unique ? statsRepository.findByDateAndUniqueIp(start, end) : statsRepository.findByDate(start, end);
+        } else {
+            List<Integer> uriIds = hitDictionaryRepository.findUriIds(uris);
+            if (uriIds.isEmpty()) {
+                return List.of();
+            }
+            counts = unique ? statsRepository.findByDateAndUrisWithUniqueIp(start, end, uriIds)
+                    : statsRepository.findByDateAndUris(start, end, uriIds);
+        }
+        return toViewStats(counts);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void stream(String start, String end, List<String> uris, boolean unique, boolean approximate,
+                       Consumer<ViewStatsDto> consumer) {
+        LocalDateTime newStart = DateFormatter.formatDate(start);
+        LocalDateTime newEnd = DateFormatter.formatDate(end);
+        DateFormatter.checkRange(newStart, newEnd);
         log.info(LOG_TEXT, start, end);
 
+        List<String> urisFilter = uris == null || uris.isEmpty() ? null : uris;
+        // Ответы из памяти и по HyperLogLog-оценкам собираются целиком: их размер ограничен списком uri
+        // или количеством оценок, а не количеством hit'ов
+        List<ViewStatsDto> hot = hotViewCounter.find(newStart, newEnd, urisFilter, unique);
+        if (hot != null) {
+            hot.forEach(consumer);
+        } else if (!unique && hitRollupService.isEnabled()) {
+            hitRollupService.findByDate(newStart, newEnd, urisFilter, consumer);
+        } else if (unique && approximate && hitSketchService.isEnabled()) {
+            hitSketchService.findUniqueByDate(newStart, newEnd, urisFilter).forEach(consumer);
+        } else {
+            hitJdbcRepository.findStatsByDate(newStart, newEnd, urisFilter, unique, consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TopViewStatsDto> getTop(String start, String end, int n) {
+        LocalDateTime newStart = DateFormatter.formatDate(start);
+        LocalDateTime newEnd = DateFormatter.formatDate(end);
+        DateFormatter.checkRange(newStart, newEnd);
+        if (n < 1) {
+            throw new ValidationQueryException("Параметр n должен быть положительным");
+        }
+        log.info(LOG_TEXT, start, end);
+
+        List<TopViewStatsDto> top = topUriCounter.find(newStart, newEnd, n);
+        if (top != null) {
+            return top;
+        }
+        return hitJdbcRepository.findTopByDate(newStart, newEnd, n).stream()
+                .map(s -> new TopViewStatsDto(s.getApp(), s.getUri(), s.getHits(), 0L))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ViewStatsBucketDto> getTimeSeries(String start, String end, List<String> uris, String granularity,
+                                                  boolean unique) {
+        LocalDateTime newStart = DateFormatter.formatDate(start);
+        LocalDateTime newEnd = DateFormatter.formatDate(end);
+        DateFormatter.checkRange(newStart, newEnd);
+        RollupGranularity bucket = parseGranularity(granularity);
         if (uris == null || uris.isEmpty()) {
-            return unique ? statsRepository.findByDateAndUniqueIp(newStart, newEnd) : statsRepository.findByDate(newStart, newEnd);
+            throw new ValidationQueryException("Для временного ряда должен быть задан список uris");
+        }
+        // Время hit'а хранится с точностью до секунды, поэтому [start, end] совпадает с [start, end + 1s)
+        LocalDateTime endExclusive = newEnd.plusSeconds(1);
+        if (bucket.countBuckets(newStart, endExclusive) > maxBuckets) {
+            throw new ValidationQueryException("Слишком много интервалов во временном ряду, максимум: " + maxBuckets);
+        }
+        log.info(LOG_TEXT, start, end);
+
+        Map<AppUri, Map<LocalDateTime, Long>> series = new TreeMap<>();
+        HitJdbcRepository.BucketCountHandler handler = (app, uri, bucketStart, hits) -> series
+                .computeIfAbsent(new AppUri(app, uri), k -> new TreeMap<>())
+                .merge(bucketStart, hits, Long::sum);
+        if (!unique && hitRollupService.isEnabled()) {
+            // Целые интервалы берутся из агрегатов, неполные интервалы на краях периода - из таблицы hits
+            LocalDateTime from = bucket.ceil(newStart);
+            LocalDateTime to = bucket.floor(endExclusive);
+            if (from.isBefore(to)) {
+                hitJdbcRepository.findSeries(bucket, newStart, from, uris, false, handler);
+                hitRollupRepository.findSeries(bucket, from, to, uris, handler);
+                hitJdbcRepository.findSeries(bucket, to, endExclusive, uris, false, handler);
+            } else {
+                hitJdbcRepository.findSeries(bucket, newStart, endExclusive, uris, false, handler);
+            }
         } else {
-            return unique ? statsRepository.findByDateAndUrisWithUniqueIp(newStart, newEnd, uris)
-                    : statsRepository.findByDateAndUris(newStart, newEnd, uris);
+            hitJdbcRepository.findSeries(bucket, newStart, endExclusive, uris, unique, handler);
+        }
+        List<ViewStatsBucketDto> result = new ArrayList<>();
+        series.forEach((key, buckets) -> buckets.forEach((bucketStart, hits) -> result.add(
+                new ViewStatsBucketDto(key.getApp(), key.getUri(), DateFormatter.format(bucketStart), hits))));
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ViewStatsDto> query(StatsQueryDto query) {
+        List<String> uris = resolveUris(query);
+        // Явно переданный пустой список означает запрос без uri, а не статистику по всем uri, как в GET /stats
+        if (uris != null && uris.isEmpty()) {
+            DateFormatter.formatDate(query.getStart());
+            DateFormatter.formatDate(query.getEnd());
+            return List.of();
+        }
+        return get(query.getStart(), query.getEnd(), uris, query.isUnique(), query.isApproximate());
+    }
+
+    @Override
+    public List<String> resolveUris(StatsQueryDto query) {
+        if (query.getUris() == null && query.getIds() == null) {
+            return null;
+        }
+        List<String> uris = new ArrayList<>();
+        if (query.getUris() != null) {
+            uris.addAll(query.getUris());
+        }
+        if (query.getIds() != null && !query.getIds().isEmpty()) {
+            if (query.getUriPrefix() == null || query.getUriPrefix().isBlank()) {
+                throw new ValidationQueryException("Для списка ids должен быть задан uriPrefix");
+            }
+            for (Long id : query.getIds()) {
+                uris.add(query.getUriPrefix() + id);
+            }
+        }
+        return uris;
+    }
+
+    private static RollupGranularity parseGranularity(String granularity) {
+        try {
+            return RollupGranularity.valueOf(granularity.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationQueryException("Неизвестная гранулярность: " + granularity);
+        }
+    }
+
+    /**
+     * Метод восстановления названий приложений и uri по идентификаторам словарей
+     *
+     * @param counts Список количества посещений по идентификаторам
+     * @return Сформированный список статистики по посещениям
+     */
+    private List<ViewStatsDto> toViewStats(List<HitCount> counts) {
+        List<ViewStatsDto> result = new ArrayList<>(counts.size());
+        for (HitCount count : counts) {
+            result.add(new ViewStatsDto(hitDictionaryRepository.getApp(count.getAppId()),
+                    hitDictionaryRepository.getUri(count.getUriId()), count.getHits()));
         }
+        return result;
     }
 }
\ No newline at end of file
@@ -0,0 +1,366 @@
+package ru.practicum.exp.stat.serv.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.exp.stat.dto.ViewStatsDto;
+import ru.practicum.exp.stat.serv.models.AppUri;
+import ru.practicum.exp.stat.serv.models.Hit;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Класс StatsResultCache для кэширования результатов запросов статистики.
+ * Конец периода в ключе округляется вверх до end-rounding-seconds, поэтому повторные запросы
+ * с "текущим" концом периода попадают в одну запись. Новые hit'ы после фиксации дописываются
+ * в записи без учета уникальности ip, записи с уникальными посещениями по затронутым uri удаляются.
+ * Результат, при вычислении которого фиксировались hit'ы по его uri, в кэш не попадает.
+ * Кэш ведется в памяти одного экземпляра сервиса, при нескольких экземплярах механизм нужно отключить.
+ */
+@Component
+public class StatsResultCache {
+    private static final int CHANGE_LOG_SIZE = 64;
+    private static final long ROW_BYTES = 64;
+
+    private final boolean enabled;
+    private final long endRoundingSeconds;
+    private final long ttlNanos;
+    private final int maxRows;
+    private final Map<Key, Entry> entries;
+    private final Map<String, Set<Key>> keysByUri = new HashMap<>();
+    private final Set<Key> unfilteredKeys = new HashSet<>();
+    private final Deque<Change> changes = new ArrayDeque<>();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter patchCounter;
+    private final Counter invalidationCounter;
+    private long generation;
+    private long bytes;
+
+    public StatsResultCache(MeterRegistry meterRegistry,
+                            @Value("${stats.cache.enabled:true}") boolean enabled,
+                            @Value("${stats.cache.end-rounding-seconds:10}") long endRoundingSeconds,
+                            @Value("${stats.cache.ttl-ms:300000}") long ttlMillis,
+                            @Value("${stats.cache.max-size:1000}") int maxSize,
+                            @Value("${stats.cache.max-rows:10000}") int maxRows) {
+        this.enabled = enabled;
+        this.endRoundingSeconds = Math.max(1, endRoundingSeconds);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxRows = maxRows;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > maxSize) {
+                    unindex(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hitCounter = requests("hit", meterRegistry);
+        this.missCounter = requests("miss", meterRegistry);
+        this.patchCounter = Counter.builder("stats.cache.updates").tag("type", "patch")
+                .description("Записи кэша результатов, обновленные новыми hit'ами")
+                .register(meterRegistry);
+        this.invalidationCounter = Counter.builder("stats.cache.updates").tag("type", "invalidation")
+                .description("Записи кэша результатов, удаленные из-за новых hit'ов")
+                .register(meterRegistry);
+        Gauge.builder("stats.cache.size", this, StatsResultCache::size)
+                .description("Количество записей в кэше результатов")
+                .register(meterRegistry);
+        Gauge.builder("stats.cache.bytes", this, StatsResultCache::bytes)
+                .description("Оценка объема памяти, занятой кэшем результатов")
+                .register(meterRegistry);
+    }
+
+    private static Counter requests(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("stats.cache.requests").tag("result", result)
+                .description("Обращения к кэшу результатов статистики")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Метод построения ключа запроса
+     *
+     * @param start       Дата и время начала диапазона
+     * @param end         Дата и время конца диапазона
+     * @param uris        Список uri или null для всех uri
+     * @param unique      Нужно ли учитывать только уникальные посещения
+     * @param approximate Допускается ли приближенный подсчет уникальных посещений
+     * @return Ключ с округленным концом периода и упорядоченным списком uri
+     */
+    public Key key(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique, boolean approximate) {
+        long endSecond = end.toEpochSecond(ZoneOffset.UTC);
+        long rounded = Math.floorDiv(endSecond + endRoundingSeconds - 1, endRoundingSeconds) * endRoundingSeconds;
+        return new Key(start, LocalDateTime.ofEpochSecond(rounded, 0, ZoneOffset.UTC),
+                uris == null ? null : List.copyOf(new TreeSet<>(uris)), unique, unique && approximate);
+    }
+
+    /**
+     * Метод получения результата из кэша
+     *
+     * @param key Ключ запроса
+     * @return Копия сохраненного результата или null при промахе
+     */
+    public List<ViewStatsDto> get(Key key) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.loadedAt >= ttlNanos) {
+                remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                missCounter.increment();
+                return null;
+            }
+            hitCounter.increment();
+            return entry.copy();
+        }
+    }
+
+    /**
+     * Метод получения номера последнего изменения, вызывается до вычисления результата
+     *
+     * @return Номер последнего изменения
+     */
+    public long generation() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    /**
+     * Метод сохранения результата. Результат не сохраняется, если после начала его вычисления
+     * были записаны hit'ы по его uri или журнал изменений уже не покрывает этот промежуток
+     *
+     * @param key        Ключ запроса
+     * @param result     Результат запроса
+     * @param generation Номер последнего изменения до начала вычисления
+     */
+    public void put(Key key, List<ViewStatsDto> result, long generation) {
+        if (!enabled || result.size() > maxRows) {
+            return;
+        }
+        synchronized (entries) {
+            if (isChangedSince(key, generation)) {
+                return;
+            }
+            remove(key);
+            Entry entry = new Entry(result, generation, System.nanoTime());
+            entries.put(key, entry);
+            bytes += entry.bytes;
+            if (key.getUris() == null) {
+                unfilteredKeys.add(key);
+            } else {
+                key.getUris().forEach(uri -> keysByUri.computeIfAbsent(uri, u -> new HashSet<>()).add(key));
+            }
+        }
+    }
+
+    /**
+     * Метод учета новых hit'ов. При активной транзакции изменение регистрируется перед фиксацией,
+     * чтобы результаты, вычисляемые одновременно с ней, не попали в кэш, а записи обновляются после фиксации.
+     *
+     * @param hits Список объектов Hit
+     */
+    public void record(List<Hit> hits) {
+        if (!enabled || hits.isEmpty()) {
+            return;
+        }
+        Set<String> uris = hits.stream().map(Hit::getUri).collect(Collectors.toSet());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private long change;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    change = markChanged(uris);
+                }
+
+                @Override
+                public void afterCommit() {
+                    apply(hits, change);
+                }
+            });
+        } else {
+            apply(hits, markChanged(uris));
+        }
+    }
+
+    private long markChanged(Set<String> uris) {
+        synchronized (entries) {
+            generation++;
+            changes.addLast(new Change(generation, uris));
+            if (changes.size() > CHANGE_LOG_SIZE) {
+                changes.removeFirst();
+            }
+            return generation;
+        }
+    }
+
+    /**
+     * Метод обновления записей по зафиксированным hit'ам. Запись, вычисление которой началось
+     * после регистрации изменения, могла уже учесть эти hit'ы, поэтому она удаляется, а не дополняется
+     */
+    private void apply(List<Hit> hits, long change) {
+        synchronized (entries) {
+            for (Hit hit : hits) {
+                Set<Key> keys = new HashSet<>(unfilteredKeys);
+                keys.addAll(keysByUri.getOrDefault(hit.getUri(), Set.of()));
+                for (Key key : keys) {
+                    if (hit.getTimestamp().isBefore(key.getStart()) || hit.getTimestamp().isAfter(key.getEnd())) {
+                        continue;
+                    }
+                    Entry entry = entries.get(key);
+                    if (key.isUnique() || entry.generation >= change) {
+                        remove(key);
+                        invalidationCounter.increment();
+                    } else {
+                        bytes += entry.add(hit.getApp(), hit.getUri());
+                        patchCounter.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isChangedSince(Key key, long since) {
+        if (generation == since) {
+            return false;
+        }
+        if (changes.isEmpty() || changes.getFirst().generation > since + 1) {
+            return true;
+        }
+        for (Change change : changes) {
+            if (change.generation > since
+                    && (key.getUris() == null || key.getUris().stream().anyMatch(change.uris::contains))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            unindex(key, entry);
+        }
+    }
+
+    private void unindex(Key key, Entry entry) {
+        bytes -= entry.bytes;
+        if (key.getUris() == null) {
+            unfilteredKeys.remove(key);
+            return;
+        }
+        for (String uri : key.getUris()) {
+            Set<Key> keys = keysByUri.get(uri);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByUri.remove(uri);
+                }
+            }
+        }
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private long bytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    /**
+     * Ключ запроса статистики
+     */
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    public static class Key {
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final List<String> uris;
+        private final boolean unique;
+        private final boolean approximate;
+    }
+
+    @AllArgsConstructor
+    private static class Change {
+        private final long generation;
+        private final Set<String> uris;
+    }
+
+    /**
+     * Результат запроса: количество посещений по приложению и uri
+     */
+    private static class Entry {
+        private final Map<AppUri, Long> hits = new LinkedHashMap<>();
+        private final long generation;
+        private final long loadedAt;
+        private long bytes;
+        private boolean sorted = true;
+
+        private Entry(List<ViewStatsDto> result, long generation, long loadedAt) {
+            this.generation = generation;
+            this.loadedAt = loadedAt;
+            result.forEach(row -> {
+                hits.put(new AppUri(row.getApp(), row.getUri()), row.getHits());
+                bytes += rowBytes(row.getApp(), row.getUri());
+            });
+        }
+
+        private long add(String app, String uri) {
+            sorted = false;
+            long count = hits.merge(new AppUri(app, uri), 1L, Long::sum);
+            if (count == 1) {
+                long added = rowBytes(app, uri);
+                bytes += added;
+                return added;
+            }
+            return 0;
+        }
+
+        private List<ViewStatsDto> copy() {
+            List<ViewStatsDto> result = new ArrayList<>(hits.size());
+            hits.forEach((key, count) -> result.add(new ViewStatsDto(key.getApp(), key.getUri(), count)));
+            if (!sorted) {
+                result.sort(Comparator.comparing(ViewStatsDto::getHits).reversed());
+            }
+            return result;
+        }
+
+        private static long rowBytes(String app, String uri) {
+            return ROW_BYTES + 2L * (app.length() + uri.length());
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package ru.practicum.exp.stat.serv.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.exp.stat.dto.TopViewStatsDto;
+import ru.practicum.exp.stat.serv.models.AppUri;
+import ru.practicum.exp.stat.serv.models.Hit;
+import ru.practicum.exp.stat.serv.models.enums.RollupGranularity;
+import ru.practicum.exp.stat.serv.repositories.HitJdbcRepository;
+import ru.practicum.exp.stat.serv.util.SpaceSaving;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * Класс TopUriCounter для поиска самых посещаемых uri по часовым Space-Saving-сводкам в памяти.
+ * Сводки заполняются из БД при запуске и обновляются после фиксации каждой записи hit'ов,
+ * хранятся за последние retention-hours часов. Целые часы периода берутся из сводок,
+ * неполные часы на краях периода - из таблицы hits.
+ * Сводки ведутся в памяти одного экземпляра сервиса, при нескольких экземплярах механизм нужно отключить.
+ */
+@Slf4j
+@Component
+@DependsOn("hitPartitionManager")
+public class TopUriCounter {
+    private static final RollupGranularity BUCKET = RollupGranularity.HOUR;
+
+    private final ConcurrentSkipListMap<LocalDateTime, SpaceSaving<AppUri>> summaries = new ConcurrentSkipListMap<>();
+    private final HitJdbcRepository hitJdbcRepository;
+    private final boolean enabled;
+    private final int capacity;
+    private final int retentionHours;
+    private final Counter sketchCounter;
+    private final Counter exactCounter;
+
+    public TopUriCounter(HitJdbcRepository hitJdbcRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${stats.top.enabled:true}") boolean enabled,
+                         @Value("${stats.top.capacity:1000}") int capacity,
+                         @Value("${stats.top.retention-hours:168}") int retentionHours) {
+        this.hitJdbcRepository = hitJdbcRepository;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.retentionHours = retentionHours;
+        this.sketchCounter = Counter.builder("stats.top.requests").tag("result", "sketch")
+                .description("Запросы самых посещаемых uri, обслуженные по сводкам")
+                .register(meterRegistry);
+        this.exactCounter = Counter.builder("stats.top.requests").tag("result", "exact")
+                .description("Запросы самых посещаемых uri, переданные в БД")
+                .register(meterRegistry);
+        Gauge.builder("stats.top.buckets", summaries, Map::size)
+                .description("Количество часовых сводок самых посещаемых uri в памяти")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Метод заполнения сводок из БД, выполняется до начала приема запросов
+     */
+    @PostConstruct
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        hitJdbcRepository.findHourlyCounts(getTrackedFrom(), (app, uri, hour, hits) ->
+                summary(hour).offer(new AppUri(app, uri), hits));
+        log.info("Сводки самых посещаемых uri заполнены: {} ч.", summaries.size());
+    }
+
+    /**
+     * Метод учета новых hit'ов. При активной транзакции сводки обновляются после ее фиксации.
+     *
+     * @param hits Список объектов Hit
+     */
+    public void record(List<Hit> hits) {
+        if (!enabled || hits.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(hits);
+                }
+            });
+        } else {
+            apply(hits);
+        }
+    }
+
+    /**
+     * Метод получения самых посещаемых uri по сводкам
+     *
+     * @param start Дата и время начала диапазона (включительно)
+     * @param end   Дата и время конца диапазона (включительно)
+     * @param n     Количество uri
+     * @return Список статистики в порядке убывания оценки или null, если запрос нужно выполнить по БД
+     */
+    public List<TopViewStatsDto> find(LocalDateTime start, LocalDateTime end, int n) {
+        // Время hit'а хранится с точностью до секунды, поэтому [start, end] совпадает с [start, end + 1s)
+        LocalDateTime endExclusive = end.plusSeconds(1);
+        LocalDateTime from = BUCKET.ceil(start);
+        LocalDateTime to = BUCKET.floor(endExclusive);
+        if (!enabled || from.isBefore(getTrackedFrom())) {
+            exactCounter.increment();
+            return null;
+        }
+        Map<AppUri, long[]> merged = new HashMap<>();
+        long untrackedBound = 0;
+        if (from.isBefore(to)) {
+            for (SpaceSaving<AppUri> summary : summaries.subMap(from, to).values()) {
+                untrackedBound += merge(summary, merged, untrackedBound);
+            }
+            addExact(start, from.minusSeconds(1), merged, untrackedBound);
+            addExact(to, end, merged, untrackedBound);
+        } else {
+            addExact(start, end, merged, 0);
+        }
+        sketchCounter.increment();
+        return merged.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<AppUri, long[]> e) -> e.getValue()[0]).reversed())
+                .limit(n)
+                .map(e -> new TopViewStatsDto(e.getKey().getApp(), e.getKey().getUri(),
+                        e.getValue()[0], e.getValue()[1]))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Метод объединения сводки с результатом. Значение, отсутствующее в одной из сводок, могло встречаться
+     * в соответствующем часе не более минимального счетчика этой сводки, поэтому к его оценке и ошибке
+     * добавляется сумма минимальных счетчиков сводок, в которых его нет
+     *
+     * @param summary        Часовая сводка
+     * @param merged         Оценка и ошибка по приложению и uri
+     * @param untrackedBound Сумма минимальных счетчиков ранее объединенных сводок
+     * @return Минимальный счетчик объединенной сводки
+     */
+    private static long merge(SpaceSaving<AppUri> summary, Map<AppUri, long[]> merged, long untrackedBound) {
+        Map<AppUri, long[]> items = new HashMap<>();
+        long minCount = summary.forEach((key, count, error) -> items.put(key, new long[]{count, error}));
+        items.forEach((key, item) -> {
+            long[] value = merged.computeIfAbsent(key, k -> new long[]{untrackedBound, untrackedBound});
+            value[0] += item[0];
+            value[1] += item[1];
+        });
+        merged.forEach((key, value) -> {
+            if (!items.containsKey(key)) {
+                value[0] += minCount;
+                value[1] += minCount;
+            }
+        });
+        return minCount;
+    }
+
+    /**
+     * Метод добавления точных количеств за неполный час. Значение, которого нет ни в одной сводке,
+     * получает оценку и ошибку, равные сумме минимальных счетчиков сводок
+     */
+    private void addExact(LocalDateTime start, LocalDateTime end, Map<AppUri, long[]> merged, long untrackedBound) {
+        if (end.isBefore(start)) {
+            return;
+        }
+        hitJdbcRepository.findStatsByDate(start, end, null, false, stats ->
+                merged.computeIfAbsent(new AppUri(stats.getApp(), stats.getUri()),
+                        k -> new long[]{untrackedBound, untrackedBound})[0] += stats.getHits());
+    }
+
+    private void apply(List<Hit> hits) {
+        LocalDateTime from = getTrackedFrom();
+        for (Hit hit : hits) {
+            LocalDateTime hour = BUCKET.floor(hit.getTimestamp());
+            if (!hour.isBefore(from)) {
+                summary(hour).offer(new AppUri(hit.getApp(), hit.getUri()), 1);
+            }
+        }
+        summaries.headMap(from).clear();
+    }
+
+    private SpaceSaving<AppUri> summary(LocalDateTime hour) {
+        return summaries.computeIfAbsent(hour, h -> new SpaceSaving<>(capacity));
+    }
+
+    /**
+     * Метод получения начала самого старого хранимого часа
+     */
+    private LocalDateTime getTrackedFrom() {
+        return BUCKET.floor(LocalDateTime.now()).minusHours(retentionHours - 1L);
+    }
+}
@@ -32,6 +32,28 @@ public class DateFormatter {
         }
     }
 
+    /**
+     * Статический метод преобразования даты и времени в строку
+     *
+     * @param date Дата и время
+     * @return Дата и время в формате "yyyy-MM-dd HH:mm:ss"
+     */
+    public static String format(LocalDateTime date) {
+        return date.format(formatter);
+    }
+
+    /**
+     * Статический метод проверки диапазона дат
+     *
+     * @param start Дата и время начала диапазона
+     * @param end   Дата и время конца диапазона
+     */
+    public static void checkRange(LocalDateTime start, LocalDateTime end) {
+        if (end.isBefore(start)) {
+            throw new ValidationDateException("Неверно заданы даты для поиска");
+        }
+    }
+
     private boolean isInvalidDate(String date) {
         return date == null || date.isBlank();
     }
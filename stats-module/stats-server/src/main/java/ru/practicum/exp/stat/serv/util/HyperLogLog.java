@@ -0,0 +1,148 @@
+package ru.practicum.exp.stat.serv.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Класс вероятностной оценки количества уникальных значений (HyperLogLog).
+ * Используется 2^12 регистров, стандартная ошибка оценки 1.04 / sqrt(4096) ~ 1.6%.
+ * Малые количества (до ~10 000) оцениваются линейным подсчетом и практически точны.
+ */
+public class HyperLogLog {
+    public static final int PRECISION = 12;
+    public static final int REGISTERS = 1 << PRECISION;
+    public static final double STANDARD_ERROR = 1.04 / Math.sqrt(REGISTERS);
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+    private static final byte DENSE = 0;
+    private static final byte SPARSE = 1;
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    /**
+     * Метод добавления значения
+     *
+     * @param value Значение, например ip
+     * @return true, если состояние изменилось
+     */
+    public boolean add(String value) {
+        long hash = hash(value.getBytes(StandardCharsets.UTF_8));
+        int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        if (registers[index] < rank) {
+            registers[index] = rank;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Метод объединения с другой оценкой
+     *
+     * @param other Другая оценка
+     * @return true, если состояние изменилось
+     */
+    public boolean merge(HyperLogLog other) {
+        boolean changed = false;
+        for (int i = 0; i < REGISTERS; i++) {
+            if (registers[i] < other.registers[i]) {
+                registers[i] = other.registers[i];
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Метод получения оценки количества уникальных значений
+     *
+     * @return Оценка количества уникальных значений
+     */
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Метод сериализации. Малозаполненные оценки хранятся списком (номер регистра, значение)
+     *
+     * @return Массив байт
+     */
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+        if (nonZero * 3 >= REGISTERS) {
+            byte[] bytes = new byte[REGISTERS + 1];
+            bytes[0] = DENSE;
+            System.arraycopy(registers, 0, bytes, 1, REGISTERS);
+            return bytes;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 + nonZero * 3);
+        buffer.put(SPARSE);
+        for (int i = 0; i < REGISTERS; i++) {
+            if (registers[i] != 0) {
+                buffer.putShort((short) i);
+                buffer.put(registers[i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Метод десериализации
+     *
+     * @param bytes Массив байт, полученный из toBytes
+     * @return Оценка количества уникальных значений
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        byte[] registers = new byte[REGISTERS];
+        if (bytes[0] == DENSE) {
+            System.arraycopy(bytes, 1, registers, 0, REGISTERS);
+        } else {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+            while (buffer.hasRemaining()) {
+                registers[buffer.getShort()] = buffer.get();
+            }
+        }
+        return new HyperLogLog(registers);
+    }
+
+    /**
+     * 64-битный FNV-1a с финальным перемешиванием из MurmurHash3 для равномерного распределения старших бит
+     */
+    private static long hash(byte[] data) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe53a87cdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,41 @@
+package ru.practicum.exp.stat.serv.util;
+
+import lombok.experimental.UtilityClass;
+import ru.practicum.exp.stat.serv.exceptions.ValidationIpException;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.regex.Pattern;
+
+/**
+ * Утилитарный класс для валидации ip адресов
+ */
+@UtilityClass
+public class IpFormatter {
+    private static final Pattern IPV4 = Pattern.compile("^((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\.){3}" +
+            "(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)$");
+    private static final Pattern IPV6 = Pattern.compile("^[0-9a-fA-F:.]*:[0-9a-fA-F:.]*$");
+
+    /**
+     * Статический метод проверки и приведения ip адреса к единой записи.
+     * Одинаковые адреса, записанные по-разному (например, IPv6 с ведущими нулями), приводятся к одной строке,
+     * поэтому уникальные ip одинаково считаются по строкам из запросов и по значениям, прочитанным из БД.
+     *
+     * @param ip Входной параметр ip адреса в виде String
+     * @return Ip адрес в единой записи
+     */
+    public static String formatIp(String ip) {
+        if (ip == null || ip.isBlank()) {
+            throw new ValidationIpException("Ip должен быть задан");
+        }
+        // Проверка формата до разбора исключает обращение к DNS для имен хостов
+        if (!IPV4.matcher(ip).matches() && !IPV6.matcher(ip).matches()) {
+            throw new ValidationIpException("Неверный формат ip");
+        }
+        try {
+            return InetAddress.getByName(ip).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new ValidationIpException("Неверный формат ip");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.exp.stat.serv.util;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Класс потоковой оценки самых частых значений (Space-Saving).
+ * Хранится не более capacity счетчиков, новое значение при заполненной сводке вытесняет значение
+ * с минимальным счетчиком и наследует его величину как ошибку. Для каждого отслеживаемого значения
+ * истинная частота лежит в диапазоне [count - error, count], любое неотслеживаемое значение
+ * встречалось не более getMinCount() раз.
+ *
+ * @param <K> Тип значения
+ */
+public class SpaceSaving<K extends Comparable<K>> {
+    private final int capacity;
+    private final Map<K, Item<K>> items = new HashMap<>();
+    private final TreeSet<Item<K>> order = new TreeSet<>(Comparator.<Item<K>>comparingLong(item -> item.count)
+            .thenComparing(item -> item.key));
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Метод учета значения
+     *
+     * @param key    Значение
+     * @param weight Количество появлений
+     */
+    public synchronized void offer(K key, long weight) {
+        Item<K> item = items.get(key);
+        if (item != null) {
+            order.remove(item);
+            item.count += weight;
+            order.add(item);
+            return;
+        }
+        if (items.size() < capacity) {
+            item = new Item<>(key, weight, 0);
+        } else {
+            Item<K> min = order.pollFirst();
+            items.remove(min.key);
+            item = new Item<>(key, min.count + weight, min.count);
+        }
+        items.put(key, item);
+        order.add(item);
+    }
+
+    /**
+     * Метод получения верхней границы частоты неотслеживаемых значений
+     *
+     * @return Минимальный счетчик заполненной сводки или 0, если вытеснений еще не было
+     */
+    public synchronized long getMinCount() {
+        return items.size() < capacity ? 0 : order.first().count;
+    }
+
+    /**
+     * Метод получения копии счетчиков
+     *
+     * @param consumer Получатель значения, счетчика и ошибки
+     * @return Верхняя граница частоты неотслеживаемых значений на момент копирования
+     */
+    public synchronized long forEach(ItemConsumer<K> consumer) {
+        items.values().forEach(item -> consumer.accept(item.key, item.count, item.error));
+        return getMinCount();
+    }
+
+    /**
+     * Получатель счетчика сводки
+     */
+    @FunctionalInterface
+    public interface ItemConsumer<K> {
+        void accept(K key, long count, long error);
+    }
+
+    private static class Item<K> {
+        private final K key;
+        private final long error;
+        private long count;
+
+        private Item(K key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
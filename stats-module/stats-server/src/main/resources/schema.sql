@@ -1,8 +1,73 @@
 
+CREATE TABLE IF NOT EXISTS hit_apps(
+                                id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                                name VARCHAR(255) NOT NULL,
+                                CONSTRAINT uq_hit_apps_name UNIQUE (name)
+);
+CREATE TABLE IF NOT EXISTS hit_uris(
+                                id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                                uri VARCHAR(700) NOT NULL,
+                                CONSTRAINT uq_hit_uris_uri UNIQUE (uri)
+);
 CREATE TABLE IF NOT EXISTS hits(
+                                id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                                app_id INT NOT NULL,
+                                uri_id INT NOT NULL,
+                                ip INET NOT NULL,
+                                time_stamp TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE TABLE IF NOT EXISTS hits_rollup_minute(
+                                app VARCHAR(255) NOT NULL,
+                                uri VARCHAR(700) NOT NULL,
+                                bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+                                hits BIGINT NOT NULL,
+                                CONSTRAINT pk_hits_rollup_minute PRIMARY KEY (bucket_start, app, uri)
+);
+CREATE TABLE IF NOT EXISTS hits_rollup_hour(
+                                app VARCHAR(255) NOT NULL,
+                                uri VARCHAR(700) NOT NULL,
+                                bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+                                hits BIGINT NOT NULL,
+                                CONSTRAINT pk_hits_rollup_hour PRIMARY KEY (bucket_start, app, uri)
+);
+CREATE TABLE IF NOT EXISTS hits_rollup_day(
+                                app VARCHAR(255) NOT NULL,
+                                uri VARCHAR(700) NOT NULL,
+                                bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+                                hits BIGINT NOT NULL,
+                                CONSTRAINT pk_hits_rollup_day PRIMARY KEY (bucket_start, app, uri)
+);
+-- Новые hit'ы дописываются по минутам без блокировок и периодически переносятся в hits_rollup_*
+CREATE TABLE IF NOT EXISTS hits_rollup_delta(
                                 id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
                                 app VARCHAR(255) NOT NULL,
                                 uri VARCHAR(700) NOT NULL,
-                                ip VARCHAR(32) NOT NULL,
-                                time_stamp TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP
-);
\ No newline at end of file
+                                bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+                                hits BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS ix_hits_rollup_delta_bucket ON hits_rollup_delta (bucket_start);
+
+CREATE TABLE IF NOT EXISTS hits_hll_day(
+                                app VARCHAR(255) NOT NULL,
+                                uri VARCHAR(700) NOT NULL,
+                                bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+                                sketch BYTEA NOT NULL,
+                                CONSTRAINT pk_hits_hll_day PRIMARY KEY (bucket_start, app, uri)
+);
+-- Новые оценки дописываются без блокировок и периодически объединяются с hits_hll_day
+CREATE TABLE IF NOT EXISTS hits_hll_day_delta(
+                                id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                                app VARCHAR(255) NOT NULL,
+                                uri VARCHAR(700) NOT NULL,
+                                bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+                                sketch BYTEA NOT NULL
+);
+CREATE INDEX IF NOT EXISTS ix_hits_hll_day_delta_bucket ON hits_hll_day_delta (bucket_start);
+CREATE TABLE IF NOT EXISTS hits_hll_state(
+                                id INT PRIMARY KEY,
+                                tracked_since TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+-- Оценки ведутся с первого запуска, более ранние периоды считаются по таблице hits
+INSERT INTO hits_hll_state (id, tracked_since)
+SELECT 1, CURRENT_TIMESTAMP WHERE NOT EXISTS (SELECT 1 FROM hits_hll_state);
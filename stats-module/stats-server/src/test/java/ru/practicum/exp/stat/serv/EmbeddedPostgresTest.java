@@ -0,0 +1,34 @@
+package ru.practicum.exp.stat.serv;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Базовый класс тестов, которым нужен PostgreSQL: секционирование, массивы и ограничения запросов не проверить на H2.
+ * Сервер запускается один раз на все тесты и останавливается вместе с JVM. Словари app и uri только пополняются
+ * и кэшируются в памяти, поэтому тесты не очищают таблицы, а используют собственные uri.
+ */
+@SpringBootTest
+public abstract class EmbeddedPostgresTest {
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.exp.stat.serv.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.exp.stat.dto.HitDto;
+import ru.practicum.exp.stat.dto.StatsQueryDto;
+import ru.practicum.exp.stat.serv.EmbeddedPostgresTest;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверка запросов со списками uri длиннее предела PostgreSQL в 32767 параметров одного запроса:
+ * списки должны передаваться в БД массивом, а не отдельным параметром на каждый элемент.
+ */
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatsQueryTest extends EmbeddedPostgresTest {
+    private static final int URIS = 40_000;
+    private static final String PREFIX = "/query-test/";
+    private static final String APP = "query-test";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeAll
+    void seed() {
+        // Значения добавляются в обход сервиса, поэтому их нет в кэше словарей и они читаются из БД
+        jdbcTemplate.update("INSERT INTO hit_apps (name) VALUES (?)", APP);
+        jdbcTemplate.update("INSERT INTO hit_uris (uri) SELECT ? || a FROM generate_series(1, ?) a", PREFIX, URIS);
+        jdbcTemplate.update("INSERT INTO hits (app_id, uri_id, ip, time_stamp) " +
+                "SELECT a.id, u.id, '10.0.0.1', '2020-02-01 12:00:00' FROM hit_uris u JOIN hit_apps a ON a.name = ? " +
+                "WHERE u.uri LIKE ?", APP, PREFIX + "%");
+        // Агрегаты заполняются так же, как при записи этих hit'ов через сервис
+        jdbcTemplate.update("INSERT INTO hits_rollup_day (app, uri, bucket_start, hits) " +
+                "SELECT ?, uri, '2020-02-01 00:00:00', 1 FROM hit_uris WHERE uri LIKE ?", APP, PREFIX + "%");
+    }
+
+    @Test
+    void queryWithUniqueIpsByLongIdList() throws Exception {
+        StatsQueryDto query = StatsQueryDto.builder()
+                .start("2020-02-01 00:00:00")
+                .end("2020-02-02 00:00:00")
+                .uriPrefix(PREFIX)
+                .ids(LongStream.rangeClosed(1, URIS).boxed().collect(Collectors.toList()))
+                .unique(true)
+                .build();
+
+        mockMvc.perform(post("/stats/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(query)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(URIS));
+    }
+
+    @Test
+    void timeSeriesByLongUriList() throws Exception {
+        // Целые сутки берутся из агрегатов, неполные сутки на краях периода - из таблицы hits
+        mockMvc.perform(get("/stats/timeseries")
+                        .param("start", "2020-01-31 12:00:00")
+                        .param("end", "2020-02-02 11:59:59")
+                        .param("granularity", "day")
+                        .param("uris", LongStream.rangeClosed(1, URIS).mapToObj(i -> PREFIX + i)
+                                .toArray(String[]::new)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(URIS));
+    }
+
+    @Test
+    void batchWithUrisMissingFromDictionaryCache() throws Exception {
+        List<HitDto> hits = LongStream.rangeClosed(1, URIS)
+                .mapToObj(i -> HitDto.builder()
+                        .app(APP)
+                        .uri(PREFIX + i)
+                        .ip("10.0.0.2")
+                        .timestamp("2020-03-01 12:00:00")
+                        .build())
+                .collect(Collectors.toList());
+
+        mockMvc.perform(post("/hit/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(hits)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.accepted").value(URIS));
+    }
+}
@@ -0,0 +1,81 @@
+package ru.practicum.exp.stat.serv.controllers;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.exp.stat.client.StatsClient;
+import ru.practicum.exp.stat.dto.ViewStatsDto;
+import ru.practicum.exp.stat.serv.EmbeddedPostgresTest;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Проверка потоковой выгрузки статистики по 1 000 000 uri. Тест выполняется отдельным запуском
+ * с ограниченной кучей (исполнение small-heap в pom.xml): результат целиком в нее не помещается,
+ * поэтому тест проходит, только если ни сервер, ни клиент не собирают его в памяти.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatsStreamSmallHeapTest extends EmbeddedPostgresTest {
+    private static final int URIS = 1_000_000;
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final LocalDateTime END = START.plusDays(1);
+    private static final long MAX_HEAP = 256L * 1024 * 1024;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    private StatsClient statsClient;
+
+    @BeforeAll
+    void seed() {
+        // Вне исполнения small-heap (например, при запуске через -Dtest) проверка не имеет смысла
+        assumeTrue(Runtime.getRuntime().maxMemory() <= MAX_HEAP, "Тест запускается с ограниченной кучей");
+        // По одному hit'у на uri, hit'ы пишутся после запуска, чтобы не попасть в сводки и счетчики в памяти
+        jdbcTemplate.update("INSERT INTO hit_apps (name) VALUES ('ewm-main-service') ON CONFLICT DO NOTHING");
+        jdbcTemplate.update("INSERT INTO hit_uris (uri) SELECT '/export/' || a FROM generate_series(1, ?) a", URIS);
+        jdbcTemplate.update("INSERT INTO hits (app_id, uri_id, ip, time_stamp) " +
+                "SELECT a.id, u.id, '10.0.0.1', ? FROM hit_uris u JOIN hit_apps a ON a.name = 'ewm-main-service' " +
+                "WHERE u.uri LIKE '/export/%'", Timestamp.valueOf(START));
+        statsClient = new StatsClient("http://localhost:" + port);
+    }
+
+    @Test
+    void streamsAllUris() {
+        long rows = 0;
+        long hits = 0;
+        for (ViewStatsDto stats : statsClient.streamStats(START, END, null, true, false).toIterable()) {
+            rows++;
+            hits += stats.getHits();
+        }
+
+        assertEquals(URIS, rows);
+        assertEquals(URIS, hits);
+    }
+
+    @Test
+    void streamsUriListPassedInBody() {
+        // Такой список не поместился бы в строку GET-запроса
+        List<String> uris = IntStream.rangeClosed(1, 50_000).mapToObj(i -> "/export/" + i)
+                .collect(Collectors.toList());
+
+        assertEquals(uris.size(), statsClient.streamStats(START, END, uris, true, false).count().block());
+    }
+
+    @Test
+    void emptyUriListGivesEmptyResult() {
+        assertEquals(0, statsClient.streamStats(START, END, List.of(), true, false).count().block());
+    }
+}
@@ -0,0 +1,166 @@
+package ru.practicum.exp.stat.serv.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.exp.stat.dto.HitDto;
+import ru.practicum.exp.stat.dto.ViewStatsDto;
+import ru.practicum.exp.stat.serv.EmbeddedPostgresTest;
+import ru.practicum.exp.stat.serv.mappers.HitMapper;
+import ru.practicum.exp.stat.serv.models.Hit;
+import ru.practicum.exp.stat.serv.models.enums.RollupGranularity;
+import ru.practicum.exp.stat.serv.services.HitRollupService;
+import ru.practicum.exp.stat.serv.services.HitService;
+import ru.practicum.exp.stat.serv.util.DateFormatter;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Проверка, что разбиение периода на сутки, часы, минуты и сырые hit'ы на краях дает то же количество,
+ * что и подсчет по таблице hits, как до переноса добавленных количеств в агрегаты, так и после.
+ */
+class HitRollupRepositoryTest extends EmbeddedPostgresTest {
+    private static final String APP = "rollup-test";
+    private static final String PREFIX = "/rollup-test/";
+    private static final int URIS = 10;
+    private static final LocalDateTime FROM = LocalDateTime.of(2021, 5, 1, 0, 0);
+    private static final int SECONDS = 3 * 24 * 60 * 60;
+
+    @Autowired
+    private HitService hitService;
+    @Autowired
+    private HitRollupService hitRollupService;
+    @Autowired
+    private HitRollupRepository hitRollupRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Random random = new Random(42);
+    private final List<String> uris = IntStream.rangeClosed(1, URIS)
+            .mapToObj(i -> PREFIX + i)
+            .collect(Collectors.toList());
+
+    @Test
+    void findByDateMatchesRawCountOnMisalignedWindows() {
+        List<LocalDateTime[]> windows = new ArrayList<>(List.of(
+                window(FROM, FROM.plusDays(3)),
+                window(FROM.plusSeconds(1), FROM.plusDays(3).minusSeconds(1)),
+                window(FROM.plusHours(7).plusMinutes(13).plusSeconds(27),
+                        FROM.plusDays(2).plusHours(18).plusSeconds(5)),
+                window(FROM.plusDays(1).minusSeconds(1), FROM.plusDays(1).plusSeconds(1)),
+                window(FROM.plusHours(34).plusMinutes(30).plusSeconds(30), FROM.plusHours(34).plusMinutes(31)),
+                window(FROM.plusHours(10).plusMinutes(15), FROM.plusHours(13)),
+                window(FROM.plusMinutes(59).plusSeconds(59), FROM.plusHours(2).plusMinutes(1))));
+        for (int i = 0; i < 20; i++) {
+            LocalDateTime start = FROM.plusSeconds(random.nextInt(SECONDS));
+            windows.add(window(start, start.plusSeconds(1 + random.nextInt(SECONDS / 2))));
+        }
+
+        createHits(5_000);
+        assertMatchesRawCount(windows);
+
+        hitRollupService.compact();
+        assertMatchesRawCount(windows);
+
+        // Часть hit'ов уже в агрегатах, часть только в hits_rollup_delta
+        createHits(5_000);
+        assertMatchesRawCount(windows);
+        assertSeriesMatchesRawCount(RollupGranularity.HOUR, FROM.plusHours(5), FROM.plusHours(40));
+        assertSeriesMatchesRawCount(RollupGranularity.MINUTE, FROM.plusHours(30), FROM.plusHours(32));
+
+        hitRollupService.compact();
+        assertMatchesRawCount(windows);
+        assertSeriesMatchesRawCount(RollupGranularity.DAY, FROM, FROM.plusDays(3));
+    }
+
+    @Test
+    void concurrentWritesOfOneUriDoNotWaitForEachOther() {
+        // Отдельный uri: hit'ы пишутся только в агрегаты и не должны попасть в сравнение с таблицей hits
+        Hit hit = HitMapper.toHit(hitDto("/rollup-lock-test/1", FROM));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                hitRollupService.increment(List.of(hit));
+                Future<?> other = executor.submit(() -> transactionTemplate.executeWithoutResult(
+                        otherStatus -> hitRollupService.increment(List.of(hit))));
+                assertDoesNotThrow(() -> other.get(10, TimeUnit.SECONDS));
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void createHits(int count) {
+        List<HitDto> hits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // Первые uri встречаются чаще, чтобы в одной минуте было несколько hit'ов одного uri
+            String uri = uris.get(Math.min(URIS - 1, (int) Math.abs(random.nextGaussian() * 3)));
+            hits.add(hitDto(uri, FROM.plusSeconds(random.nextInt(SECONDS))));
+        }
+        assertEquals(count, hitService.createBatch(hits).getAccepted());
+    }
+
+    private void assertMatchesRawCount(List<LocalDateTime[]> windows) {
+        for (LocalDateTime[] window : windows) {
+            Map<String, Long> expected = new HashMap<>();
+            jdbcTemplate.query("SELECT u.uri, COUNT(*) AS hits FROM hits h " +
+                            "JOIN hit_apps a ON a.id = h.app_id JOIN hit_uris u ON u.id = h.uri_id " +
+                            "WHERE a.name = ? AND u.uri LIKE ? AND h.time_stamp >= ? AND h.time_stamp < ? " +
+                            "GROUP BY u.uri",
+                    rs -> {
+                        expected.put(rs.getString("uri"), rs.getLong("hits"));
+                    }, APP, PREFIX + "%", Timestamp.valueOf(window[0]), Timestamp.valueOf(window[1]));
+            Map<String, Long> actual = hitRollupRepository.findByDate(window[0], window[1], uris).stream()
+                    .collect(Collectors.toMap(ViewStatsDto::getUri, ViewStatsDto::getHits));
+            assertEquals(expected, actual, "Период " + window[0] + " - " + window[1]);
+        }
+    }
+
+    private void assertSeriesMatchesRawCount(RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        Map<String, Long> expected = new HashMap<>();
+        jdbcTemplate.query("SELECT u.uri, date_trunc('" + granularity.name().toLowerCase() + "', h.time_stamp) AS b, " +
+                        "COUNT(*) AS hits FROM hits h " +
+                        "JOIN hit_apps a ON a.id = h.app_id JOIN hit_uris u ON u.id = h.uri_id " +
+                        "WHERE a.name = ? AND u.uri LIKE ? AND h.time_stamp >= ? AND h.time_stamp < ? " +
+                        "GROUP BY u.uri, b",
+                rs -> {
+                    expected.put(rs.getString("uri") + " " + rs.getTimestamp("b").toLocalDateTime(),
+                            rs.getLong("hits"));
+                }, APP, PREFIX + "%", Timestamp.valueOf(from), Timestamp.valueOf(to));
+        Map<String, Long> actual = new HashMap<>();
+        hitRollupRepository.findSeries(granularity, from, to, uris,
+                (app, uri, bucketStart, hits) -> actual.merge(uri + " " + bucketStart, hits, Long::sum));
+        assertEquals(expected, actual, "Ряд " + granularity + " " + from + " - " + to);
+    }
+
+    private static LocalDateTime[] window(LocalDateTime start, LocalDateTime endExclusive) {
+        return new LocalDateTime[]{start, endExclusive};
+    }
+
+    private static HitDto hitDto(String uri, LocalDateTime timestamp) {
+        return HitDto.builder()
+                .app(APP)
+                .uri(uri)
+                .ip("10.0.0.3")
+                .timestamp(DateFormatter.format(timestamp))
+                .build();
+    }
+}
@@ -0,0 +1,154 @@
+package ru.practicum.exp.stat.serv.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.practicum.exp.stat.dto.ViewStatsDto;
+import ru.practicum.exp.stat.serv.models.Hit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Проверка обновления кэша результатов новыми hit'ами и отказа в сохранении результатов,
+ * при вычислении которых фиксировались hit'ы по их uri
+ */
+class StatsResultCacheTest {
+    private static final String APP = "cache-test";
+    private static final LocalDateTime START = LocalDateTime.of(2022, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2022, 1, 2, 0, 0);
+    private static final int CHANGE_LOG_SIZE = 64;
+
+    private final StatsResultCache cache = new StatsResultCache(new SimpleMeterRegistry(), true, 10, 300_000,
+            1000, 10_000);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void patchesNonUniqueEntry() {
+        StatsResultCache.Key key = cache.key(START, END, List.of("/a", "/b"), false, false);
+        cache.put(key, List.of(stats("/a", 2), stats("/b", 1)), cache.generation());
+
+        cache.record(List.of(hit("/b", START.plusHours(1)), hit("/b", START.plusHours(2))));
+        cache.record(List.of(hit("/a", END.plusHours(1)), hit("/c", START.plusHours(1))));
+
+        assertEquals(List.of(stats("/b", 3), stats("/a", 2)), cache.get(key));
+    }
+
+    @Test
+    void patchesUnfilteredEntryWithNewUri() {
+        StatsResultCache.Key key = cache.key(START, END, null, false, false);
+        cache.put(key, List.of(stats("/a", 1)), cache.generation());
+
+        cache.record(List.of(hit("/c", START.plusHours(1)), hit("/c", START.plusHours(2))));
+
+        assertEquals(List.of(stats("/c", 2), stats("/a", 1)), cache.get(key));
+    }
+
+    @Test
+    void invalidatesUniqueEntryOnHitOfItsUri() {
+        StatsResultCache.Key key = cache.key(START, END, List.of("/a"), true, false);
+        StatsResultCache.Key other = cache.key(START, END, List.of("/b"), true, false);
+        cache.put(key, List.of(stats("/a", 1)), cache.generation());
+        cache.put(other, List.of(stats("/b", 1)), cache.generation());
+
+        cache.record(List.of(hit("/a", START.plusHours(1))));
+
+        assertNull(cache.get(key));
+        assertEquals(List.of(stats("/b", 1)), cache.get(other));
+    }
+
+    @Test
+    void invalidatesUnfilteredUniqueEntryOnAnyHit() {
+        StatsResultCache.Key key = cache.key(START, END, null, true, true);
+        cache.put(key, List.of(stats("/a", 1)), cache.generation());
+
+        cache.record(List.of(hit("/a", END.plusHours(1))));
+        assertEquals(List.of(stats("/a", 1)), cache.get(key));
+
+        cache.record(List.of(hit("/z", START.plusHours(1))));
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void rejectsPutAfterCommitOnSameUri() {
+        StatsResultCache.Key key = cache.key(START, END, List.of("/a"), false, false);
+        StatsResultCache.Key other = cache.key(START, END, List.of("/b"), false, false);
+        long generation = cache.generation();
+
+        // Hit'ы фиксируются, пока результат вычисляется по БД
+        TransactionSynchronizationManager.initSynchronization();
+        cache.record(List.of(hit("/a", START.plusHours(1))));
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        cache.put(key, List.of(stats("/a", 1)), generation);
+        cache.put(other, List.of(stats("/b", 1)), generation);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+
+        assertNull(cache.get(key));
+        assertEquals(List.of(stats("/b", 1)), cache.get(other));
+    }
+
+    @Test
+    void dropsEntryComputedDuringCommitInsteadOfPatching() {
+        StatsResultCache.Key key = cache.key(START, END, List.of("/a"), false, false);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.record(List.of(hit("/a", START.plusHours(1))));
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        // Результат вычислен после регистрации изменения и мог уже учесть новый hit
+        cache.put(key, List.of(stats("/a", 1)), cache.generation());
+        TransactionSynchronizationUtils.triggerAfterCommit();
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void acceptsPutWhileChangeLogCoversComputation() {
+        StatsResultCache.Key key = cache.key(START, END, List.of("/a"), false, false);
+        long generation = cache.generation();
+
+        for (int i = 0; i < CHANGE_LOG_SIZE; i++) {
+            cache.record(List.of(hit("/other/" + i, START.plusHours(1))));
+        }
+        cache.put(key, List.of(stats("/a", 1)), generation);
+
+        assertEquals(List.of(stats("/a", 1)), cache.get(key));
+    }
+
+    @Test
+    void rejectsPutWhenChangeLogOverflowed() {
+        StatsResultCache.Key key = cache.key(START, END, List.of("/a"), false, false);
+        long generation = cache.generation();
+
+        // Изменения по другим uri, но начало вычисления уже вытеснено из журнала
+        for (int i = 0; i <= CHANGE_LOG_SIZE; i++) {
+            cache.record(List.of(hit("/other/" + i, START.plusHours(1))));
+        }
+        cache.put(key, List.of(stats("/a", 1)), generation);
+
+        assertNull(cache.get(key));
+    }
+
+    private static Hit hit(String uri, LocalDateTime timestamp) {
+        return Hit.builder()
+                .app(APP)
+                .uri(uri)
+                .ip("10.0.0.1")
+                .timestamp(timestamp)
+                .build();
+    }
+
+    private static ViewStatsDto stats(String uri, long hits) {
+        return new ViewStatsDto(APP, uri, hits);
+    }
+}
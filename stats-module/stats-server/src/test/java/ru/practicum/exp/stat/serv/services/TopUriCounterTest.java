@@ -0,0 +1,149 @@
+package ru.practicum.exp.stat.serv.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.exp.stat.dto.TopViewStatsDto;
+import ru.practicum.exp.stat.dto.ViewStatsDto;
+import ru.practicum.exp.stat.serv.models.Hit;
+import ru.practicum.exp.stat.serv.models.enums.RollupGranularity;
+import ru.practicum.exp.stat.serv.repositories.HitJdbcRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Проверка оценок самых посещаемых uri на потоке с небольшим количеством популярных uri и длинным хвостом:
+ * каждый из истинных n самых посещаемых uri должен попасть в результат, а его точное количество
+ * должно лежать в диапазоне [hits - error, hits].
+ */
+class TopUriCounterTest {
+    private static final String APP = "top-test";
+    private static final int HOURS = 24;
+    private static final int HITS_PER_HOUR = 10_000;
+    private static final int HOT_URIS = 10;
+    private static final int TAIL_URIS = 20_000;
+    private static final int CAPACITY = 1000;
+    private static final double[] HOT_WEIGHTS = hotWeights();
+
+    private final Random random = new Random(42);
+    private final List<Hit> hits = new ArrayList<>();
+    private LocalDateTime from;
+    private TopUriCounter topUriCounter;
+
+    @BeforeEach
+    void setUp() {
+        // Часы потока заканчиваются за сутки до текущего часа, чтобы не выйти за хранимый период во время теста
+        from = RollupGranularity.HOUR.floor(LocalDateTime.now()).minusHours(2L * HOURS);
+        HitJdbcRepository hitJdbcRepository = mock(HitJdbcRepository.class);
+        // Неполные часы на краях периода считаются точно по тому же потоку
+        doAnswer(invocation -> {
+            LocalDateTime start = invocation.getArgument(0);
+            LocalDateTime end = invocation.getArgument(1);
+            Consumer<ViewStatsDto> consumer = invocation.getArgument(4);
+            exactCounts(start, end).forEach((uri, count) -> consumer.accept(new ViewStatsDto(APP, uri, count)));
+            return null;
+        }).when(hitJdbcRepository).findStatsByDate(any(), any(), isNull(), anyBoolean(), any());
+        topUriCounter = new TopUriCounter(hitJdbcRepository, new SimpleMeterRegistry(), true, CAPACITY, 168);
+
+        for (int hour = 0; hour < HOURS; hour++) {
+            List<Hit> hourHits = new ArrayList<>();
+            for (int i = 0; i < HITS_PER_HOUR; i++) {
+                hourHits.add(Hit.builder()
+                        .app(APP)
+                        .uri(nextUri())
+                        .ip("10.0.0.1")
+                        .timestamp(from.plusHours(hour).plusSeconds(random.nextInt(3600)))
+                        .build());
+            }
+            topUriCounter.record(hourHits);
+            hits.addAll(hourHits);
+        }
+    }
+
+    @Test
+    void findKeepsTrueTopUrisWithinErrorBoundsOnAlignedPeriod() {
+        assertTopUris(from, from.plusHours(HOURS).minusSeconds(1), HOT_URIS);
+    }
+
+    @Test
+    void findKeepsTrueTopUrisWithinErrorBoundsOnMisalignedPeriod() {
+        assertTopUris(from.plusMinutes(25).plusSeconds(13), from.plusHours(HOURS - 1).plusMinutes(47), HOT_URIS);
+        assertTopUris(from.plusHours(3).plusMinutes(59), from.plusHours(5).plusMinutes(1), 3);
+    }
+
+    private void assertTopUris(LocalDateTime start, LocalDateTime end, int n) {
+        Map<String, Long> exact = exactCounts(start, end);
+        List<TopViewStatsDto> top = topUriCounter.find(start, end, n);
+
+        assertNotNull(top);
+        assertEquals(n, top.size());
+        for (TopViewStatsDto stats : top) {
+            long count = exact.getOrDefault(stats.getUri(), 0L);
+            assertTrue(stats.getHits() - stats.getError() <= count && count <= stats.getHits(),
+                    stats.getUri() + ": точное " + count + ", оценка " + stats.getHits() +
+                            ", ошибка " + stats.getError());
+        }
+        List<String> expected = exact.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(n)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .collect(Collectors.toList());
+        List<String> actual = top.stream()
+                .map(TopViewStatsDto::getUri)
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Треть hit'ов приходится на популярные uri с частотой, обратной номеру uri, остальные - на хвост
+     */
+    private String nextUri() {
+        if (random.nextInt(3) > 0) {
+            return "/tail/" + random.nextInt(TAIL_URIS);
+        }
+        double point = random.nextDouble() * HOT_WEIGHTS[HOT_URIS - 1];
+        int rank = 0;
+        while (rank < HOT_URIS - 1 && HOT_WEIGHTS[rank] < point) {
+            rank++;
+        }
+        return "/hot/" + (rank + 1);
+    }
+
+    private static double[] hotWeights() {
+        double[] weights = new double[HOT_URIS];
+        double sum = 0;
+        for (int i = 0; i < HOT_URIS; i++) {
+            sum += 1.0 / (i + 1);
+            weights[i] = sum;
+        }
+        return weights;
+    }
+
+    private Map<String, Long> exactCounts(LocalDateTime start, LocalDateTime end) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Hit hit : hits) {
+            if (!hit.getTimestamp().isBefore(start) && !hit.getTimestamp().isAfter(end)) {
+                counts.merge(hit.getUri(), 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.exp.stat.serv.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimateStaysWithinThreeStandardErrors() {
+        for (int cardinality : new int[]{10, 100, 1_000, 10_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = sketch(0, cardinality);
+
+            double error = Math.abs(sketch.estimate() - cardinality) / (double) cardinality;
+
+            assertTrue(error <= 3 * HyperLogLog.STANDARD_ERROR,
+                    "Ошибка " + error + " для " + cardinality + " значений");
+        }
+    }
+
+    @Test
+    void repeatedValuesDoNotChangeEstimate() {
+        HyperLogLog sketch = sketch(0, 1_000);
+
+        assertFalse(sketch.add(ip(10)));
+        assertEquals(sketch(0, 1_000).estimate(), sketch.estimate());
+    }
+
+    @Test
+    void smallSketchIsSerializedSparse() {
+        HyperLogLog sketch = sketch(0, 100);
+
+        byte[] bytes = sketch.toBytes();
+
+        assertTrue(bytes.length < HyperLogLog.REGISTERS / 10);
+        assertArrayEquals(bytes, HyperLogLog.fromBytes(bytes).toBytes());
+        assertEquals(sketch.estimate(), HyperLogLog.fromBytes(bytes).estimate());
+    }
+
+    @Test
+    void sketchSwitchesToDenseWhenSparseIsNotSmaller() {
+        HyperLogLog sketch = new HyperLogLog();
+        int sparseLength = 0;
+        int i = 0;
+        while (sketch.toBytes().length <= HyperLogLog.REGISTERS) {
+            sparseLength = sketch.toBytes().length;
+            sketch.add(ip(i++));
+        }
+
+        byte[] bytes = sketch.toBytes();
+
+        assertEquals(HyperLogLog.REGISTERS + 1, bytes.length);
+        assertTrue(sparseLength > HyperLogLog.REGISTERS - 3);
+        assertArrayEquals(bytes, HyperLogLog.fromBytes(bytes).toBytes());
+        assertEquals(sketch.estimate(), HyperLogLog.fromBytes(bytes).estimate());
+    }
+
+    @Test
+    void mergeEqualsSketchOfUnion() {
+        HyperLogLog first = sketch(0, 60_000);
+        HyperLogLog second = sketch(40_000, 100_000);
+
+        assertTrue(first.merge(second));
+
+        assertArrayEquals(sketch(0, 100_000).toBytes(), first.toBytes());
+        assertFalse(first.merge(sketch(10_000, 20_000)));
+    }
+
+    @Test
+    void mergeOfDeserializedSketchesKeepsRegisters() {
+        HyperLogLog sparse = HyperLogLog.fromBytes(sketch(0, 50).toBytes());
+        HyperLogLog dense = HyperLogLog.fromBytes(sketch(50, 20_000).toBytes());
+
+        sparse.merge(dense);
+
+        assertArrayEquals(sketch(0, 20_000).toBytes(), sparse.toBytes());
+    }
+
+    private static HyperLogLog sketch(int from, int to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = from; i < to; i++) {
+            sketch.add(ip(i));
+        }
+        return sketch;
+    }
+
+    private static String ip(int i) {
+        return "10." + ((i >>> 16) & 0xff) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff);
+    }
+}